@@ -0,0 +1,47 @@
+package benchmarks;
+
+import model.Employee;
+import model.PayrollRecord;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic data sets shared by the benchmarks
+final class BenchmarkData {
+    static final LocalDate LAST_PAY_DATE = LocalDate.of(2026, 9, 30);
+    private static final String[] POSITIONS = {"Manager", "Clerk", "Technical"};
+
+    private BenchmarkData() {
+    }
+
+    static List<Employee> employees(int count) {
+        Random random = new Random(42);
+        List<Employee> employees = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            Employee employee = new Employee(id, "Employee " + id, POSITIONS[id % POSITIONS.length],
+                                             2000 + random.nextInt(6000));
+            employee.setHoursWorked(30 + random.nextInt(11));
+            employee.setOvertimeHours(random.nextInt(10));
+            employees.add(employee);
+        }
+        return employees;
+    }
+
+    // Records spread over one pay date per day, oldest first, for 1000 employees
+    static List<PayrollRecord> history(int count) {
+        Random random = new Random(7);
+        List<PayrollRecord> records = new ArrayList<>(count);
+        int days = Math.max(1, count / 1000);
+        LocalDate first = LAST_PAY_DATE.minusDays(days - 1);
+        for (int i = 0; i < count; i++) {
+            int employeeId = 1 + i % 1000;
+            double gross = 2000 + random.nextInt(6000);
+            double tax = gross * 0.15;
+            records.add(new PayrollRecord(employeeId, "Employee " + employeeId, 40, random.nextInt(10),
+                                          gross, tax, gross - tax, first.plusDays(i / 1000)));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,42 @@
+package benchmarks;
+
+import model.Employee;
+import model.PayrollRecord;
+import utils.PayrollCalculator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of calculating pay for a single employee
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatorBenchmark {
+    private Employee employee;
+
+    @Setup
+    public void setUp() {
+        employee = new Employee(1, "John Doe", "Manager", 5000.0);
+        employee.setHoursWorked(40);
+        employee.setOvertimeHours(6);
+    }
+
+    @Benchmark
+    public double grossPay() {
+        return PayrollCalculator.calculateGrossPay(employee);
+    }
+
+    @Benchmark
+    public double netPay() {
+        return PayrollCalculator.calculateNetPay(employee);
+    }
+
+    @Benchmark
+    public PayrollRecord generatePayrollRecord() {
+        return PayrollCalculator.generatePayrollRecord(employee);
+    }
+}
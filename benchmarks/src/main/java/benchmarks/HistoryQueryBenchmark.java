@@ -0,0 +1,71 @@
+package benchmarks;
+
+import model.PayrollRecord;
+import data.PayrollHistoryView;
+import data.SimpleDataManager;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Payroll history reads and writes on SimpleDataManager
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class HistoryQueryBenchmark {
+    @Param({"100000"})
+    public int recordCount;
+
+    private SimpleDataManager dataManager;
+    private LocalDate rangeStart;
+    private LocalDate rangeEnd;
+    private PayrollRecord extraRecord;
+
+    @Setup
+    public void setUp() {
+        dataManager = new SimpleDataManager();
+        for (PayrollRecord record : BenchmarkData.history(recordCount)) {
+            dataManager.savePayrollRecord(record);
+        }
+        rangeEnd = BenchmarkData.LAST_PAY_DATE;
+        rangeStart = rangeEnd.minusDays(30);
+        extraRecord = BenchmarkData.history(1).get(0);
+    }
+
+    @Benchmark
+    public List<PayrollRecord> allRecords() {
+        return dataManager.getAllPayrollRecords();
+    }
+
+    @Benchmark
+    public List<PayrollRecord> latest100() {
+        return dataManager.getLatestPayrollRecords(100);
+    }
+
+    @Benchmark
+    public List<PayrollRecord> lastMonth() {
+        return dataManager.getPayrollRecordsBetween(rangeStart, rangeEnd);
+    }
+
+    @Benchmark
+    public List<PayrollRecord> employeeHistory() {
+        return dataManager.getPayrollRecordsForEmployee(42);
+    }
+
+    @Benchmark
+    public PayrollHistoryView historyView() {
+        return dataManager.getPayrollHistory();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void saveRecord() {
+        dataManager.savePayrollRecord(extraRecord);
+    }
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import model.Employee;
+import model.PayrollRecord;
+import utils.PayrollCalculator;
+import utils.PayrollRunEngine;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Bulk payroll runs: the old sequential loop against the fork-join engine
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class PayrollRunBenchmark {
+    @Param({"10000", "1000000"})
+    public int employeeCount;
+
+    private List<Employee> employees;
+    private PayrollRunEngine engine;
+    private double[] baseSalary;
+    private double[] hoursWorked;
+    private double[] overtimeHours;
+    private long[] grossPay;
+    private long[] tax;
+    private long[] netPay;
+
+    @Setup
+    public void setUp() {
+        employees = BenchmarkData.employees(employeeCount);
+        engine = new PayrollRunEngine();
+
+        baseSalary = new double[employeeCount];
+        hoursWorked = new double[employeeCount];
+        overtimeHours = new double[employeeCount];
+        grossPay = new long[employeeCount];
+        tax = new long[employeeCount];
+        netPay = new long[employeeCount];
+        for (int i = 0; i < employeeCount; i++) {
+            Employee employee = employees.get(i);
+            baseSalary[i] = employee.getBaseSalary();
+            hoursWorked[i] = employee.getHoursWorked();
+            overtimeHours[i] = employee.getOvertimeHours();
+        }
+    }
+
+    @Benchmark
+    public void sequentialRun(Blackhole blackhole) {
+        // Same loop as the legacy PayrollSystem.processAllPayrolls()
+        List<PayrollRecord> records = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            records.add(PayrollCalculator.generatePayrollRecord(employee));
+        }
+        blackhole.consume(records);
+    }
+
+    @Benchmark
+    public PayrollRunEngine.RunResult parallelRun() {
+        return engine.run(employees);
+    }
+
+    @Benchmark
+    public long[] primitiveBatch() {
+        PayrollCalculator.calculateBatch(baseSalary, hoursWorked, overtimeHours, grossPay, tax, netPay);
+        return netPay;
+    }
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import model.PayrollRecord;
+import data.SimpleDataManager;
+import gui.PayrollTableModel;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.swing.table.DefaultTableModel;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Populating the payroll table: row-copying DefaultTableModel against the virtual model
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true", "-Xms2g", "-Xmx2g"})
+public class TableModelBenchmark {
+    // Rows a typical table viewport paints
+    private static final int VISIBLE_ROWS = 40;
+
+    @Param({"100000"})
+    public int recordCount;
+
+    private SimpleDataManager dataManager;
+    private PayrollTableModel virtualModel;
+
+    @Setup
+    public void setUp() {
+        dataManager = new SimpleDataManager();
+        for (PayrollRecord record : BenchmarkData.history(recordCount)) {
+            dataManager.savePayrollRecord(record);
+        }
+        virtualModel = new PayrollTableModel(dataManager.getPayrollHistory());
+    }
+
+    @Benchmark
+    public DefaultTableModel copyingModel() {
+        // What PayrollGUI.loadPayrollData() used to do
+        String[] columnNames = {"Employee ID", "Name", "Hours", "Overtime", "Gross Pay", "Tax", "Net Pay", "Date"};
+        DefaultTableModel model = new DefaultTableModel(columnNames, 0);
+        List<PayrollRecord> records = dataManager.getAllPayrollRecords();
+        for (PayrollRecord record : records) {
+            Object[] row = {
+                record.getEmployeeId(),
+                record.getEmployeeName(),
+                record.getHoursWorked(),
+                record.getOvertimeHours(),
+                String.format("$%.2f", record.getGrossPay()),
+                String.format("$%.2f", record.getTax()),
+                String.format("$%.2f", record.getNetPay()),
+                record.getPayDate()
+            };
+            model.addRow(row);
+        }
+        return model;
+    }
+
+    @Benchmark
+    public void virtualModel(Blackhole blackhole) {
+        virtualModel.setSource(dataManager.getPayrollHistory());
+        for (int row = 0; row < VISIBLE_ROWS; row++) {
+            for (int column = 0; column < virtualModel.getColumnCount(); column++) {
+                blackhole.consume(virtualModel.getValueAt(row, column));
+            }
+        }
+    }
+}
@@ -12,7 +12,7 @@ echo Current directory: %CD%
 
 REM Compile all Java files with proper package structure
 echo Compiling Java source files...
-javac -d build -sourcepath src src/gui/PayrollGUI.java src/model/*.java src/data/*.java src/utils/*.java
+javac -d build -sourcepath src src/gui/PayrollGUI.java src/cli/*.java src/metrics/*.java src/model/*.java src/data/*.java src/utils/*.java
 
 if %ERRORLEVEL% EQU 0 (
     echo.
@@ -0,0 +1,15 @@
+@echo off
+setlocal
+REM Headless payroll runner, e.g. payroll.bat run --period 2026-10 --input timesheets.csv --output run.csv
+
+REM Resolve the project root from this script so it works from any directory
+set "PAYROLL_HOME=%~dp0.."
+
+if not exist "%PAYROLL_HOME%\build\cli\PayrollCli.class" (
+    echo Error: Application not compiled. Please run compile.bat first.
+    exit /b 1
+)
+
+REM lib holds the optional JDBC driver from setup.bat
+java -cp "%PAYROLL_HOME%\build;%PAYROLL_HOME%\lib\*" cli.PayrollCli %*
+exit /b %ERRORLEVEL%
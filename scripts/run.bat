@@ -17,8 +17,8 @@ echo Current directory: %CD%
 echo Running Payroll Management System...
 echo.
 
-REM Run the application
-java -cp build gui.PayrollGUI
+REM Run the application (lib holds the optional JDBC driver from setup.bat)
+java -cp "build;lib\*" gui.PayrollGUI
 
 echo.
 echo Application closed.
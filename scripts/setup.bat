@@ -7,6 +7,8 @@ if not exist "lib" mkdir lib
 REM Download SQLite JDBC driver
 echo Downloading SQLite JDBC driver...
 curl -L -o lib/sqlite-jdbc-3.44.1.0.jar https://repo1.maven.org/maven2/org/xerial/sqlite-jdbc/3.44.1.0/sqlite-jdbc-3.44.1.0.jar
+REM The driver logs through the SLF4J API, which must be on the class path too
+curl -L -o lib/slf4j-api-1.7.36.jar https://repo1.maven.org/maven2/org/slf4j/slf4j-api/1.7.36/slf4j-api-1.7.36.jar
 
 if exist "lib/sqlite-jdbc-3.44.1.0.jar" (
     echo SQLite JDBC driver downloaded successfully!
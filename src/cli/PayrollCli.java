@@ -0,0 +1,408 @@
+package cli;
+
+import data.ColumnarDataManager;
+import data.CsvImporter;
+import data.CsvImporter.ImportResult;
+import data.CsvImporter.RowError;
+import data.DataAccessException;
+import data.JdbcDataManager;
+import data.MeteredPayrollRepository;
+import data.PayStubTemplate;
+import data.PayStubWriter;
+import data.PayrollExporter;
+import data.PayrollRepository;
+import data.SimpleDataManager;
+import data.SummarizingPayrollRepository;
+import metrics.Metrics;
+import model.Money;
+import model.PayPeriod;
+import model.PayrollRecord;
+import utils.PayRules;
+import utils.PayrollCalculator;
+import utils.PayrollPeriodRunner;
+import utils.PayrollPeriodRunner.PeriodRunResult;
+import utils.PayrollRunEngine;
+import utils.PayrollRunEngine.RunResult;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Headless payroll runner for scheduled jobs:
+ *
+ *   payroll run --period 2026-10 --input timesheets.csv --output run.csv --threads 4
+ *
+ * Opens a store, optionally imports employees and hours from CSV, runs the
+ * payroll for every employee on the last day of the period, then exports the
+ * records and prints how long each step took. With --save the run is saved in
+ * chunks with a checkpoint each: running a period again replaces its records,
+ * and a run that failed part way resumes where it stopped; --stubs then
+ * writes a pay stub per employee with year-to-date totals. Only the model,
+ * data and utils packages are used, so no AWT or Swing classes are loaded and
+ * it runs on a machine without a display.
+ *
+ * Exit codes: 0 success, 1 failure, 2 bad command line, 3 finished but some
+ * input rows were rejected (they are listed on standard error).
+ */
+public final class PayrollCli {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+    public static final int EXIT_ROWS_REJECTED = 3;
+
+    private static final List<String> VALUE_OPTIONS = Arrays.asList(
+        "period", "input", "employees", "output", "format", "threads", "chunk-size", "data-dir", "jdbc-url",
+        "rules", "region", "stubs", "stub-format", "stub-template");
+    private static final List<String> FLAG_OPTIONS = Arrays.asList("save", "columnar");
+
+    private static final String USAGE =
+        "Usage: payroll run --period YYYY-MM [options]\n"
+        + "\n"
+        + "Options:\n"
+        + "  --period YYYY-MM     Pay period; records are dated its last day (required)\n"
+        + "  --employees FILE     Import employees from CSV before the run\n"
+        + "  --input FILE         Import hours (timesheets) from CSV before the run\n"
+        + "  --output FILE        Export the run's records to FILE\n"
+        + "  --format FORMAT      csv, jsonl or bank (default: from the output extension)\n"
+        + "  --threads N          Calculate on N threads (default: all processors)\n"
+        + "  --data-dir DIR       Use the journaled store in DIR\n"
+        + "  --jdbc-url URL       Use the database at URL\n"
+        + "  --columnar           Keep the in-memory store in compact columns\n"
+        + "  --save               Save the run's records to the store, replacing the\n"
+        + "                       period's earlier records; resumes an unfinished run\n"
+        + "  --chunk-size N       Employees per saved chunk (default: "
+        + PayrollPeriodRunner.DEFAULT_CHUNK_SIZE + ")\n"
+        + "  --stubs PATH         Write pay stubs to the directory PATH, or to PATH as a\n"
+        + "                       zip if it ends in .zip (needs --save)\n"
+        + "  --stub-format FORMAT html or text (default: html, or from the template)\n"
+        + "  --stub-template FILE Pay stub template with {{field}} placeholders\n"
+        + "  --rules FILE         Pay rules properties file\n"
+        + "  --region NAME        Region section of the rules file\n"
+        + "\n"
+        + "Without --data-dir or --jdbc-url the store is in memory and starts with\n"
+        + "the sample employees unless --employees is given.\n";
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    public PayrollCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        System.exit(new PayrollCli(System.out, System.err).execute(args));
+    }
+
+    // Runs one command line and returns its exit code
+    public int execute(String[] args) {
+        if (args.length == 0 || args[0].equals("help") || args[0].equals("--help")) {
+            out.print(USAGE);
+            return args.length == 0 ? EXIT_USAGE : EXIT_OK;
+        }
+        if (!args[0].equals("run")) {
+            return usage("Unknown command '" + args[0] + "'");
+        }
+
+        Map<String, String> options;
+        try {
+            options = parseOptions(args);
+        } catch (IllegalArgumentException e) {
+            return usage(e.getMessage());
+        }
+
+        if (!options.containsKey("period")) {
+            return usage("--period is required");
+        }
+        YearMonth period;
+        try {
+            period = YearMonth.parse(options.get("period"));
+        } catch (DateTimeParseException e) {
+            return usage("Invalid period '" + options.get("period") + "', expected YYYY-MM");
+        }
+        int threads = 0;
+        if (options.containsKey("threads")) {
+            try {
+                threads = Integer.parseInt(options.get("threads"));
+            } catch (NumberFormatException e) {
+                threads = -1;
+            }
+            if (threads < 1) {
+                return usage("Invalid thread count '" + options.get("threads") + "'");
+            }
+        }
+        int chunkSize = PayrollPeriodRunner.DEFAULT_CHUNK_SIZE;
+        if (options.containsKey("chunk-size")) {
+            if (!options.containsKey("save")) {
+                return usage("--chunk-size needs --save");
+            }
+            try {
+                chunkSize = Integer.parseInt(options.get("chunk-size"));
+            } catch (NumberFormatException e) {
+                chunkSize = -1;
+            }
+            if (chunkSize < 1) {
+                return usage("Invalid chunk size '" + options.get("chunk-size") + "'");
+            }
+        }
+        if (options.containsKey("data-dir") && options.containsKey("jdbc-url")) {
+            return usage("Use either --data-dir or --jdbc-url, not both");
+        }
+        if (options.containsKey("columnar") && (options.containsKey("data-dir") || options.containsKey("jdbc-url"))) {
+            return usage("--columnar is for the in-memory store, not --data-dir or --jdbc-url");
+        }
+        PayrollExporter.Format format = null;
+        if (options.containsKey("output")) {
+            String name = options.containsKey("format") ? options.get("format") : extension(options.get("output"));
+            format = parseFormat(name);
+            if (format == null) {
+                return usage(options.containsKey("format")
+                             ? "Unknown format '" + name + "'"
+                             : "Cannot tell the format of '" + options.get("output") + "', use --format");
+            }
+        } else if (options.containsKey("format")) {
+            return usage("--format needs --output");
+        }
+        PayStubTemplate.Format stubFormat = null;
+        if (options.containsKey("stubs")) {
+            if (!options.containsKey("save")) {
+                return usage("--stubs needs --save, stubs are only written for saved runs");
+            }
+            if (options.containsKey("stub-format")) {
+                stubFormat = parseStubFormat(options.get("stub-format"));
+                if (stubFormat == null) {
+                    return usage("Unknown stub format '" + options.get("stub-format") + "'");
+                }
+            }
+        } else if (options.containsKey("stub-format") || options.containsKey("stub-template")) {
+            return usage("--stub-format and --stub-template need --stubs");
+        }
+
+        try {
+            return run(options, PayPeriod.of(period), threads, chunkSize, format, stubFormat);
+        } catch (IOException | DataAccessException | IllegalArgumentException | IllegalStateException e) {
+            err.println("Error: " + e.getMessage());
+            return EXIT_FAILED;
+        }
+    }
+
+    private int run(Map<String, String> options, PayPeriod period, int threads, int chunkSize,
+                    PayrollExporter.Format format, PayStubTemplate.Format stubFormat) throws IOException {
+        long start = System.nanoTime();
+        if (options.containsKey("rules")) {
+            Path rulesFile = Paths.get(options.get("rules"));
+            PayrollCalculator.setRules(options.containsKey("region")
+                                       ? PayRules.load(rulesFile, options.get("region"))
+                                       : PayRules.load(rulesFile));
+        }
+        // Compiled before the store is opened so a bad template fails fast
+        PayStubTemplate stubTemplate = null;
+        if (options.containsKey("stubs")) {
+            if (options.containsKey("stub-template")) {
+                Path templateFile = Paths.get(options.get("stub-template"));
+                stubTemplate = stubFormat != null ? PayStubTemplate.load(templateFile, stubFormat)
+                                                  : PayStubTemplate.load(templateFile);
+            } else {
+                stubTemplate = PayStubTemplate.defaultTemplate(
+                    stubFormat != null ? stubFormat : PayStubTemplate.Format.HTML);
+            }
+        }
+
+        long rejected = 0;
+        long opened = System.nanoTime();
+        PayrollRepository store = openRepository(options);
+        // Stubs need year-to-date totals, so keep rollups of the history in front of the store
+        SummarizingPayrollRepository summaries = null;
+        if (stubTemplate != null) {
+            try {
+                summaries = new SummarizingPayrollRepository(store);
+            } catch (RuntimeException e) {
+                store.close();
+                throw e;
+            }
+        }
+        try (PayrollRepository repository = MeteredPayrollRepository.wrap(summaries != null ? summaries : store)) {
+            out.printf("Opened store in %.1f ms%n", millisSince(opened));
+
+            CsvImporter importer = new CsvImporter(repository);
+            if (options.containsKey("employees")) {
+                ImportResult result = importer.importEmployees(Paths.get(options.get("employees")));
+                rejected += report("employees", options.get("employees"), result);
+            }
+            if (options.containsKey("input")) {
+                ImportResult result = importer.importHours(Paths.get(options.get("input")));
+                rejected += report("hours", options.get("input"), result);
+            }
+
+            List<PayrollRecord> records;
+            // --threads gets a pool of its own, shut down when the run is done
+            try (PayrollRunEngine engine = threads > 0 ? new PayrollRunEngine(threads) : new PayrollRunEngine()) {
+                if (options.containsKey("save")) {
+                    PeriodRunResult run = new PayrollPeriodRunner(engine, chunkSize).run(repository, period);
+                    if (run.isResumed()) {
+                        out.printf("Resumed the unfinished run for %s after employee %d%n",
+                                   period.getMonth(), run.getResumedAfterEmployeeId());
+                    }
+                    out.printf("Calculated and saved %d records for %s in %.1f ms on %d threads (%.0f records/s, "
+                               + "%d chunks, %d earlier records replaced)%n",
+                               run.getRecordsCalculated(), period.getPayDate(), run.getElapsedMillis(),
+                               engine.getParallelism(), run.getRecordsPerSecond(), run.getRun().getChunkCount(),
+                               run.getRecordsReplaced());
+                    // Includes chunks saved before a resume
+                    records = repository.getPayrollRecordsForPeriod(period.getMonth());
+                } else {
+                    RunResult run = engine.run(repository.getAllEmployees(), period.getPayDate());
+                    out.printf("Calculated %d records for %s in %.1f ms on %d threads (%.0f records/s)%n",
+                               run.getRecordCount(), period.getPayDate(), run.getElapsedMillis(),
+                               run.getParallelism(), run.getRecordsPerSecond());
+                    records = run.getRecords();
+                }
+            }
+
+            if (format != null) {
+                long exported = System.nanoTime();
+                int count = new PayrollExporter(format).export(records, Paths.get(options.get("output")));
+                out.printf("Exported %d records to %s in %.1f ms%n", count, options.get("output"), millisSince(exported));
+            }
+
+            if (stubTemplate != null) {
+                long written = System.nanoTime();
+                PayStubWriter writer = new PayStubWriter(stubTemplate, summaries.getRollups());
+                Path stubs = Paths.get(options.get("stubs"));
+                int count = extension(options.get("stubs")).equalsIgnoreCase("zip")
+                            ? writer.writeZip(records, stubs)
+                            : writer.writeDirectory(records, stubs);
+                out.printf("Wrote %d pay stubs to %s in %.1f ms%n", count, stubs, millisSince(written));
+            }
+
+            long gross = 0;
+            long tax = 0;
+            long net = 0;
+            for (PayrollRecord record : records) {
+                gross += record.getGrossPayCents();
+                tax += record.getTaxCents();
+                net += record.getNetPayCents();
+            }
+            out.printf("Totals: gross %s, tax %s, net %s%n", Money.format(gross), Money.format(tax), Money.format(net));
+        }
+        out.printf("Finished in %.1f ms%n", millisSince(start));
+        if (Metrics.ENABLED) {
+            err.print(Metrics.dump());
+        }
+        return rejected > 0 ? EXIT_ROWS_REJECTED : EXIT_OK;
+    }
+
+    private static PayrollRepository openRepository(Map<String, String> options) throws IOException {
+        if (options.containsKey("jdbc-url")) {
+            try {
+                return new JdbcDataManager(options.get("jdbc-url"));
+            } catch (SQLException e) {
+                throw new DataAccessException("Cannot open database " + options.get("jdbc-url") + ": "
+                                              + e.getMessage(), e);
+            }
+        }
+        if (options.containsKey("data-dir")) {
+            return new SimpleDataManager(Paths.get(options.get("data-dir")));
+        }
+        // Sample employees only when nothing else will be loaded
+        boolean withSampleData = !options.containsKey("employees");
+        return options.containsKey("columnar") ? new ColumnarDataManager(withSampleData)
+                                               : new SimpleDataManager(withSampleData);
+    }
+
+    // Prints an import summary and its row errors; returns the number of rejected rows
+    private long report(String what, String file, ImportResult result) {
+        out.printf("Imported %d of %d %s rows from %s in %.1f ms (%.0f rows/s)%n",
+                   result.getRowsImported(), result.getRowsRead(), what, file,
+                   result.getElapsedMillis(), result.getRowsPerSecond());
+        for (RowError error : result.getErrors()) {
+            err.println(file + ": " + error);
+        }
+        long unlisted = result.getUnlistedErrorCount();
+        if (unlisted > 0) {
+            err.println(file + ": " + unlisted + " more rejected rows not listed");
+        }
+        return result.getErrorCount();
+    }
+
+    // --name value and --name=value; flags take no value
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument '" + arg + "'");
+            }
+            String name = arg.substring(2);
+            String value = null;
+            int equals = name.indexOf('=');
+            if (equals >= 0) {
+                value = name.substring(equals + 1);
+                name = name.substring(0, equals);
+            }
+            if (FLAG_OPTIONS.contains(name)) {
+                if (value != null) {
+                    throw new IllegalArgumentException("--" + name + " takes no value");
+                }
+                value = "";
+            } else if (VALUE_OPTIONS.contains(name)) {
+                if (value == null) {
+                    if (i + 1 == args.length) {
+                        throw new IllegalArgumentException("--" + name + " needs a value");
+                    }
+                    value = args[++i];
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown option '--" + name + "'");
+            }
+            if (options.put(name, value) != null) {
+                throw new IllegalArgumentException("--" + name + " given more than once");
+            }
+        }
+        return options;
+    }
+
+    // Accepts the file extension (csv, jsonl, txt) or the format name (json-lines, bank)
+    private static PayrollExporter.Format parseFormat(String name) {
+        for (PayrollExporter.Format format : PayrollExporter.Format.values()) {
+            if (format.getExtension().equalsIgnoreCase(name)
+                    || format.name().replace('_', '-').equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static PayStubTemplate.Format parseStubFormat(String name) {
+        for (PayStubTemplate.Format format : PayStubTemplate.Format.values()) {
+            if (format.name().equalsIgnoreCase(name) || format.getExtension().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static String extension(String file) {
+        int dot = file.lastIndexOf('.');
+        return dot < 0 ? "" : file.substring(dot + 1);
+    }
+
+    private int usage(String message) {
+        err.println("Error: " + message);
+        err.print(USAGE);
+        return EXIT_USAGE;
+    }
+
+    private static double millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,319 @@
+package data;
+
+import model.Employee;
+import model.PayrollRecord;
+import model.PayrollRun;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through employee cache in front of another PayrollRepository, meant
+ * for stores where every read is a query (JdbcDataManager).
+ *
+ * getEmployee() is served from a bounded LRU map and getAllEmployees() from a
+ * cached list, so payroll runs and GUI refreshes do not go back to the store
+ * for employees they have already read. The store stays authoritative: every
+ * write goes to it first and only then updates the cache (hours are written
+ * through to the cached employee; adds and removals drop the cached list).
+ * A load that overlaps a write is not cached, so a reader can never put data
+ * older than a completed write back into the cache. Payroll records pass
+ * straight through. EmployeeListeners are told of a write once the cache
+ * holds it, so a listener that reads the employee back sees the new values.
+ *
+ * Only writes made through this repository are seen; do not share the store
+ * with another writer. Thread-safe.
+ */
+public class CachingPayrollRepository implements PayrollRepository {
+    public static final int DEFAULT_MAX_EMPLOYEES = 10_000;
+
+    private final PayrollRepository store;
+    private final int maxEmployees;
+
+    // Guarded by this
+    private final LinkedHashMap<Integer, Employee> employees;
+    private List<Employee> allEmployees;
+    // Bumped by every employee write so loads that raced a write are dropped
+    private long version;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final EmployeeListeners employeeListeners = new EmployeeListeners();
+
+    public CachingPayrollRepository(PayrollRepository store) {
+        this(store, DEFAULT_MAX_EMPLOYEES);
+    }
+
+    public CachingPayrollRepository(PayrollRepository store, int maxEmployees) {
+        if (maxEmployees < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.store = store;
+        this.maxEmployees = maxEmployees;
+        // Access order makes iteration order least recently used first
+        this.employees = new LinkedHashMap<Integer, Employee>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Employee> eldest) {
+                if (size() > CachingPayrollRepository.this.maxEmployees) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public PayrollRepository getStore() {
+        return store;
+    }
+
+    @Override
+    public Employee getEmployee(int id) {
+        long loadVersion;
+        synchronized (this) {
+            Employee cached = employees.get(id);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            loadVersion = version;
+        }
+        misses.increment();
+        Employee employee = store.getEmployee(id);
+        if (employee != null) {
+            synchronized (this) {
+                if (version == loadVersion) {
+                    employees.put(id, employee);
+                }
+            }
+        }
+        return employee;
+    }
+
+    @Override
+    public List<Employee> getAllEmployees() {
+        long loadVersion;
+        synchronized (this) {
+            if (allEmployees != null) {
+                hits.increment();
+                return new ArrayList<>(allEmployees);
+            }
+            loadVersion = version;
+        }
+        misses.increment();
+        List<Employee> loaded = store.getAllEmployees();
+        synchronized (this) {
+            if (version == loadVersion) {
+                allEmployees = loaded;
+                // Share the loaded objects so a hours write-through updates both views
+                for (Employee employee : loaded) {
+                    employees.put(employee.getEmployeeId(), employee);
+                }
+            }
+        }
+        return new ArrayList<>(loaded);
+    }
+
+    @Override
+    public List<Employee> getEmployeesByPosition(String position) {
+        List<Employee> matching = new ArrayList<>();
+        for (Employee employee : getAllEmployees()) {
+            if (employee.getPosition().equals(position)) {
+                matching.add(employee);
+            }
+        }
+        return matching;
+    }
+
+    @Override
+    public int addEmployee(String name, String role, double baseSalary) {
+        int id = store.addEmployee(name, role, baseSalary);
+        employeesChanged();
+        employeeListeners.fire(id);
+        return id;
+    }
+
+    @Override
+    public int[] addEmployees(String[] names, String[] roles, double[] baseSalaries, int count) {
+        int[] ids = store.addEmployees(names, roles, baseSalaries, count);
+        employeesChanged();
+        employeeListeners.fire(ids, ids.length);
+        return ids;
+    }
+
+    @Override
+    public void updateEmployeeHours(int employeeId, double hoursWorked, double overtimeHours) {
+        store.updateEmployeeHours(employeeId, hoursWorked, overtimeHours);
+        synchronized (this) {
+            version++;
+            writeThrough(employeeId, hoursWorked, overtimeHours);
+        }
+        employeeListeners.fire(employeeId);
+    }
+
+    @Override
+    public int updateHoursBatch(int[] employeeIds, double[] hoursWorked, double[] overtimeHours, int count) {
+        int updated = store.updateHoursBatch(employeeIds, hoursWorked, overtimeHours, count);
+        synchronized (this) {
+            version++;
+            for (int i = 0; i < count; i++) {
+                writeThrough(employeeIds[i], hoursWorked[i], overtimeHours[i]);
+            }
+        }
+        employeeListeners.fire(employeeIds, count);
+        return updated;
+    }
+
+    // Caller holds the lock
+    private void writeThrough(int employeeId, double hoursWorked, double overtimeHours) {
+        Employee cached = employees.get(employeeId);
+        if (cached != null) {
+            synchronized (cached) {
+                cached.setHoursWorked(hoursWorked);
+                cached.setOvertimeHours(overtimeHours);
+            }
+        } else if (allEmployees != null) {
+            // Evicted from the map but maybe still in the list: the list can no longer be trusted
+            allEmployees = null;
+        }
+    }
+
+    @Override
+    public void removeEmployee(int employeeId) {
+        store.removeEmployee(employeeId);
+        synchronized (this) {
+            employees.remove(employeeId);
+            employeesChanged();
+        }
+        employeeListeners.fire(employeeId);
+    }
+
+    private synchronized void employeesChanged() {
+        version++;
+        allEmployees = null;
+    }
+
+    @Override
+    public void savePayrollRecord(PayrollRecord record) {
+        store.savePayrollRecord(record);
+    }
+
+    @Override
+    public int savePayrollRecords(Collection<? extends PayrollRecord> records) {
+        return store.savePayrollRecords(records);
+    }
+
+    @Override
+    public List<PayrollRecord> commitPayrollRun(PayrollRun run, Collection<? extends PayrollRecord> records) {
+        return store.commitPayrollRun(run, records);
+    }
+
+    @Override
+    public PayrollRun getPayrollRun(YearMonth period) {
+        return store.getPayrollRun(period);
+    }
+
+    @Override
+    public List<PayrollRecord> getAllPayrollRecords() {
+        return store.getAllPayrollRecords();
+    }
+
+    @Override
+    public PayrollRecordSource getPayrollHistory() {
+        return store.getPayrollHistory();
+    }
+
+    @Override
+    public List<PayrollRecord> getPayrollRecordsBetween(LocalDate from, LocalDate to) {
+        return store.getPayrollRecordsBetween(from, to);
+    }
+
+    @Override
+    public List<PayrollRecord> getLatestPayrollRecords(int count) {
+        return store.getLatestPayrollRecords(count);
+    }
+
+    @Override
+    public List<PayrollRecord> getPayrollRecordsForEmployee(int employeeId) {
+        return store.getPayrollRecordsForEmployee(employeeId);
+    }
+
+    @Override
+    public List<PayrollRecord> getPayrollRecordsForDate(LocalDate payDate) {
+        return store.getPayrollRecordsForDate(payDate);
+    }
+
+    @Override
+    public List<PayrollRecord> getPayrollRecordsForPeriod(YearMonth period) {
+        return store.getPayrollRecordsForPeriod(period);
+    }
+
+    @Override
+    public int getPayrollRecordCount() {
+        return store.getPayrollRecordCount();
+    }
+
+    @Override
+    public void addEmployeeListener(EmployeeListener listener) {
+        employeeListeners.add(listener);
+    }
+
+    @Override
+    public void removeEmployeeListener(EmployeeListener listener) {
+        employeeListeners.remove(listener);
+    }
+
+    // Drops everything cached, e.g. after the store was changed behind this cache's back
+    public synchronized void invalidate() {
+        version++;
+        employees.clear();
+        allEmployees = null;
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), employees.size());
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+
+    public static final class CacheStats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+
+        CacheStats(long hits, long misses, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public int getSize() { return size; }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CacheStats[Hits: %d, Misses: %d, Hit rate: %.1f%%, Evictions: %d, Size: %d]",
+                                 hits, misses, getHitRate() * 100, evictions, size);
+        }
+    }
+}
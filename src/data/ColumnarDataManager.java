@@ -0,0 +1,626 @@
+package data;
+
+import model.Employee;
+import model.PayDates;
+import model.PayrollRecord;
+import model.PayrollRun;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Memory-compact, in-memory PayrollRepository: an alternative to
+ * SimpleDataManager for large histories.
+ *
+ * Employees and payroll records are kept in primitive columns (one array per
+ * field) instead of one object per row. Record names and employee positions are
+ * stored as codes into a shared dictionary, pay dates as epoch-day ints, money as
+ * long cents, and employees are found through an int-keyed open-addressing
+ * index. A record costs 52 bytes of column space instead of a 64-byte
+ * PayrollRecord and a list slot.
+ *
+ * Record rows are kept in pay date order, then in the order saved, so history
+ * and date range queries are a binary search plus a copy of the rows returned.
+ * Saving in date order, as payroll runs do, only appends; a save dated before
+ * the latest pay date, or a commitPayrollRun() that replaces records, moves
+ * the rows after the first one it changes. Views from getPayrollHistory()
+ * hold the columns of the moment they were taken and read them without
+ * locking; the first change to existing rows after a view was taken copies
+ * the columns instead of changing them under it. Lookups by employee or
+ * position scan a column.
+ *
+ * Employee and PayrollRecord objects are only created when they are read, so the
+ * Employee returned by getEmployee() is a copy: change hours through
+ * updateEmployeeHours(). All methods are thread-safe (read/write lock).
+ */
+public class ColumnarDataManager implements PayrollRepository {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicInteger nextEmployeeId = new AtomicInteger(1);
+    private final NameDictionary dictionary = new NameDictionary();
+    private final Map<YearMonth, PayrollRun> payrollRuns = new HashMap<>();
+    private final EmployeeListeners employeeListeners = new EmployeeListeners();
+
+    // Employee columns, rows 0..employeeCount-1 are live
+    private final IntIndex employeeRows = new IntIndex(INITIAL_CAPACITY);
+    private int[] employeeIds = new int[INITIAL_CAPACITY];
+    private String[] employeeNames = new String[INITIAL_CAPACITY];
+    private int[] employeePositions = new int[INITIAL_CAPACITY];
+    private double[] baseSalaries = new double[INITIAL_CAPACITY];
+    private double[] employeeHours = new double[INITIAL_CAPACITY];
+    private double[] employeeOvertime = new double[INITIAL_CAPACITY];
+    private int employeeCount;
+
+    // Payroll record columns, ordered by pay date and then by save order
+    private int[] recordEmployeeIds = new int[INITIAL_CAPACITY];
+    private int[] recordNames = new int[INITIAL_CAPACITY];
+    private int[] recordPayDays = new int[INITIAL_CAPACITY];
+    private double[] recordHours = new double[INITIAL_CAPACITY];
+    private double[] recordOvertime = new double[INITIAL_CAPACITY];
+    private long[] recordGross = new long[INITIAL_CAPACITY];
+    private long[] recordTax = new long[INITIAL_CAPACITY];
+    private long[] recordNet = new long[INITIAL_CAPACITY];
+    private int recordCount;
+    // First row of each distinct pay date, ascending
+    private int[] dayStarts = new int[INITIAL_CAPACITY];
+    private int dayCount;
+    // Set while a view may hold the record columns; rows below recordCount must not change then
+    private boolean shared;
+
+    public ColumnarDataManager() {
+        this(true);
+    }
+
+    public ColumnarDataManager(boolean withSampleData) {
+        if (withSampleData) {
+            addSampleData();
+        }
+    }
+
+    private void addSampleData() {
+        addEmployee("John Doe", "Manager", 5000.0);
+        addEmployee("Jane Smith", "Technical", 4000.0);
+        addEmployee("Bob Johnson", "Clerk", 3000.0);
+    }
+
+    public int addEmployee(String name, String role, double baseSalary) {
+        int id = nextEmployeeId.getAndIncrement();
+        lock.writeLock().lock();
+        try {
+            appendEmployee(id, name, role, baseSalary);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        employeeListeners.fire(id);
+        return id;
+    }
+
+    @Override
+    public int[] addEmployees(String[] names, String[] roles, double[] baseSalaries, int count) {
+        if (count < 0 || count > names.length || count > roles.length || count > baseSalaries.length) {
+            throw new IndexOutOfBoundsException("Batch of " + count + " exceeds an array");
+        }
+        int firstId = nextEmployeeId.getAndAdd(count);
+        int[] ids = new int[count];
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                ids[i] = firstId + i;
+                appendEmployee(ids[i], names[i], roles[i], baseSalaries[i]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        employeeListeners.fire(ids, count);
+        return ids;
+    }
+
+    private void appendEmployee(int id, String name, String role, double baseSalary) {
+        if (employeeCount == employeeIds.length) {
+            growEmployees();
+        }
+        int row = employeeCount++;
+        employeeIds[row] = id;
+        employeeNames[row] = name;
+        employeePositions[row] = dictionary.encode(role);
+        baseSalaries[row] = baseSalary;
+        employeeHours[row] = 0;
+        employeeOvertime[row] = 0;
+        employeeRows.put(id, row);
+    }
+
+    public List<Employee> getAllEmployees() {
+        lock.readLock().lock();
+        try {
+            List<Employee> result = new ArrayList<>(employeeCount);
+            for (int row = 0; row < employeeCount; row++) {
+                result.add(toEmployee(row));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Employee getEmployee(int id) {
+        lock.readLock().lock();
+        try {
+            int row = employeeRows.get(id, -1);
+            return row < 0 ? null : toEmployee(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Employee> getEmployeesByPosition(String position) {
+        lock.readLock().lock();
+        try {
+            List<Employee> result = new ArrayList<>();
+            int code = dictionary.find(position);
+            if (code < 0) {
+                return result;
+            }
+            for (int row = 0; row < employeeCount; row++) {
+                if (employeePositions[row] == code) {
+                    result.add(toEmployee(row));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void updateEmployeeHours(int employeeId, double hoursWorked, double overtimeHours) {
+        lock.writeLock().lock();
+        try {
+            int row = employeeRows.get(employeeId, -1);
+            if (row >= 0) {
+                employeeHours[row] = hoursWorked;
+                employeeOvertime[row] = overtimeHours;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        employeeListeners.fire(employeeId);
+    }
+
+    @Override
+    public int updateHoursBatch(int[] employeeIds, double[] hoursWorked, double[] overtimeHours, int count) {
+        if (count < 0 || count > employeeIds.length || count > hoursWorked.length || count > overtimeHours.length) {
+            throw new IndexOutOfBoundsException("Batch of " + count + " exceeds an array");
+        }
+        int updated = 0;
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                int row = employeeRows.get(employeeIds[i], -1);
+                if (row >= 0) {
+                    employeeHours[row] = hoursWorked[i];
+                    employeeOvertime[row] = overtimeHours[i];
+                    updated++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        employeeListeners.fire(employeeIds, count);
+        return updated;
+    }
+
+    public void removeEmployee(int employeeId) {
+        lock.writeLock().lock();
+        try {
+            int row = employeeRows.get(employeeId, -1);
+            if (row < 0) {
+                return;
+            }
+            employeeRows.remove(employeeId);
+            // Move the last row into the hole to keep the columns dense
+            int last = --employeeCount;
+            if (row != last) {
+                employeeIds[row] = employeeIds[last];
+                employeeNames[row] = employeeNames[last];
+                employeePositions[row] = employeePositions[last];
+                baseSalaries[row] = baseSalaries[last];
+                employeeHours[row] = employeeHours[last];
+                employeeOvertime[row] = employeeOvertime[last];
+                employeeRows.put(employeeIds[row], row);
+            }
+            employeeNames[last] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        employeeListeners.fire(employeeId);
+    }
+
+    public void savePayrollRecord(PayrollRecord record) {
+        savePayrollRecords(List.of(record));
+    }
+
+    @Override
+    public int savePayrollRecords(Collection<? extends PayrollRecord> records) {
+        lock.writeLock().lock();
+        try {
+            insertRecords(new ArrayList<>(records), null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return records.size();
+    }
+
+    public List<PayrollRecord> commitPayrollRun(PayrollRun run, Collection<? extends PayrollRecord> records) {
+        List<PayrollRecord> added = new ArrayList<>(records);
+        List<PayrollRecord> replaced = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            // The last record of this call for each employee and month wins
+            Map<YearMonth, IntIndex> latest = new HashMap<>();
+            for (int i = 0; i < added.size(); i++) {
+                PayrollRecord record = added.get(i);
+                latest.computeIfAbsent(record.getPayPeriod(), month -> new IntIndex(added.size()))
+                      .put(record.getEmployeeId(), i);
+            }
+            List<PayrollRecord> kept = new ArrayList<>(added.size());
+            for (int i = 0; i < added.size(); i++) {
+                PayrollRecord record = added.get(i);
+                if (latest.get(record.getPayPeriod()).get(record.getEmployeeId(), -1) == i) {
+                    kept.add(record);
+                } else {
+                    replaced.add(record);
+                }
+            }
+
+            BitSet removed = new BitSet(recordCount);
+            for (Map.Entry<YearMonth, IntIndex> month : latest.entrySet()) {
+                IntIndex employees = month.getValue();
+                int from = firstRowOnOrAfter((int) month.getKey().atDay(1).toEpochDay());
+                int to = firstRowOnOrAfter((int) month.getKey().atEndOfMonth().toEpochDay() + 1);
+                for (int row = from; row < to; row++) {
+                    if (employees.get(recordEmployeeIds[row], -1) >= 0) {
+                        removed.set(row);
+                        replaced.add(toPayrollRecord(row));
+                    }
+                }
+            }
+            insertRecords(kept, removed);
+            payrollRuns.put(run.getPeriod().getMonth(), run);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return replaced;
+    }
+
+    public PayrollRun getPayrollRun(YearMonth period) {
+        lock.readLock().lock();
+        try {
+            return payrollRuns.get(period);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<PayrollRecord> getAllPayrollRecords() {
+        lock.readLock().lock();
+        try {
+            List<PayrollRecord> result = new ArrayList<>(recordCount);
+            addNewestFirst(0, recordCount, Integer.MAX_VALUE, result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public PayrollRecordSource getPayrollHistory() {
+        // The write lock, as this marks the columns shared
+        lock.writeLock().lock();
+        try {
+            shared = true;
+            return new HistoryView();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Records paid between the two dates, both inclusive
+    public List<PayrollRecord> getPayrollRecordsBetween(LocalDate from, LocalDate to) {
+        List<PayrollRecord> result = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            addNewestFirst(firstRowOnOrAfter((int) from.toEpochDay()),
+                           firstRowOnOrAfter((int) to.toEpochDay() + 1), Integer.MAX_VALUE, result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<PayrollRecord> getLatestPayrollRecords(int count) {
+        lock.readLock().lock();
+        try {
+            List<PayrollRecord> result = new ArrayList<>(Math.max(0, Math.min(count, recordCount)));
+            addNewestFirst(0, recordCount, count, result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // All records for one employee, oldest pay date first
+    public List<PayrollRecord> getPayrollRecordsForEmployee(int employeeId) {
+        lock.readLock().lock();
+        try {
+            List<PayrollRecord> result = new ArrayList<>();
+            for (int row = 0; row < recordCount; row++) {
+                if (recordEmployeeIds[row] == employeeId) {
+                    result.add(toPayrollRecord(row));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<PayrollRecord> getPayrollRecordsForDate(LocalDate payDate) {
+        return getPayrollRecordsBetween(payDate, payDate);
+    }
+
+    public List<PayrollRecord> getPayrollRecordsForPeriod(YearMonth period) {
+        return getPayrollRecordsBetween(period.atDay(1), period.atEndOfMonth());
+    }
+
+    public int getPayrollRecordCount() {
+        lock.readLock().lock();
+        try {
+            return recordCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addEmployeeListener(EmployeeListener listener) {
+        employeeListeners.add(listener);
+    }
+
+    @Override
+    public void removeEmployeeListener(EmployeeListener listener) {
+        employeeListeners.remove(listener);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Drops the rows set in removed (may be null), then adds records in pay
+     * date order. Rows before the first one that changes stay where they are,
+     * so the usual save of a new pay date only appends, and a rerun of the
+     * latest period only moves that period's rows.
+     */
+    private void insertRecords(List<PayrollRecord> added, BitSet removed) {
+        int firstRemoved = removed == null ? -1 : removed.nextSetBit(0);
+        // Stable, so records sharing a pay date keep their order
+        added.sort((a, b) -> a.getPayDate().compareTo(b.getPayDate()));
+        int firstInsert = added.isEmpty() ? recordCount
+                                          : firstRowOnOrAfter((int) added.get(0).getPayDate().toEpochDay() + 1);
+        int firstChanged = firstRemoved < 0 ? firstInsert : Math.min(firstRemoved, firstInsert);
+        if (firstChanged < recordCount) {
+            unshare();
+        }
+
+        if (firstRemoved >= 0) {
+            int to = firstRemoved;
+            for (int row = firstRemoved; row < recordCount; row++) {
+                if (!removed.get(row)) {
+                    moveRow(row, to++);
+                }
+            }
+            recordCount = to;
+        }
+
+        int count = recordCount + added.size();
+        if (count > recordEmployeeIds.length) {
+            growRecords(count);
+        }
+        // Merge from the back; rows go before records sharing their date
+        int row = recordCount - 1;
+        int next = added.size() - 1;
+        for (int to = count - 1; next >= 0; to--) {
+            PayrollRecord record = added.get(next);
+            if (row >= 0 && recordPayDays[row] > record.getPayDate().toEpochDay()) {
+                moveRow(row--, to);
+            } else {
+                writeRow(to, record);
+                next--;
+            }
+        }
+        recordCount = count;
+        indexDays(Math.min(firstChanged, row + 1));
+    }
+
+    // Copies the record columns if a view holds them, before rows are changed in place
+    private void unshare() {
+        if (!shared) {
+            return;
+        }
+        recordEmployeeIds = recordEmployeeIds.clone();
+        recordNames = recordNames.clone();
+        recordPayDays = recordPayDays.clone();
+        recordHours = recordHours.clone();
+        recordOvertime = recordOvertime.clone();
+        recordGross = recordGross.clone();
+        recordTax = recordTax.clone();
+        recordNet = recordNet.clone();
+        dayStarts = dayStarts.clone();
+        shared = false;
+    }
+
+    private void moveRow(int from, int to) {
+        recordEmployeeIds[to] = recordEmployeeIds[from];
+        recordNames[to] = recordNames[from];
+        recordPayDays[to] = recordPayDays[from];
+        recordHours[to] = recordHours[from];
+        recordOvertime[to] = recordOvertime[from];
+        recordGross[to] = recordGross[from];
+        recordTax[to] = recordTax[from];
+        recordNet[to] = recordNet[from];
+    }
+
+    private void writeRow(int row, PayrollRecord record) {
+        recordEmployeeIds[row] = record.getEmployeeId();
+        recordNames[row] = dictionary.encode(record.getEmployeeName());
+        recordPayDays[row] = (int) record.getPayDate().toEpochDay();
+        recordHours[row] = record.getHoursWorked();
+        recordOvertime[row] = record.getOvertimeHours();
+        recordGross[row] = record.getGrossPayCents();
+        recordTax[row] = record.getTaxCents();
+        recordNet[row] = record.getNetPayCents();
+    }
+
+    // Recomputes dayStarts for rows from fromRow on; earlier rows are unchanged
+    private void indexDays(int fromRow) {
+        while (dayCount > 0 && dayStarts[dayCount - 1] >= fromRow) {
+            dayCount--;
+        }
+        for (int row = fromRow; row < recordCount; row++) {
+            if (row == 0 || recordPayDays[row] != recordPayDays[row - 1]) {
+                if (dayCount == dayStarts.length) {
+                    dayStarts = Arrays.copyOf(dayStarts, dayCount * 2);
+                }
+                dayStarts[dayCount++] = row;
+            }
+        }
+    }
+
+    private int firstRowOnOrAfter(int payDay) {
+        int low = 0;
+        int high = recordCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (recordPayDays[mid] < payDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Adds up to limit of rows from..to-1, newest pay date first and rows sharing a date in row order
+    private void addNewestFirst(int from, int to, int limit, List<PayrollRecord> result) {
+        int end = to;
+        int added = 0;
+        while (end > from && added < limit) {
+            int start = end - 1;
+            while (start > from && recordPayDays[start - 1] == recordPayDays[end - 1]) {
+                start--;
+            }
+            for (int row = start; row < end && added < limit; row++, added++) {
+                result.add(toPayrollRecord(row));
+            }
+            end = start;
+        }
+    }
+
+    private Employee toEmployee(int row) {
+        Employee employee = new Employee(employeeIds[row], employeeNames[row],
+                                         dictionary.decode(employeePositions[row]), baseSalaries[row]);
+        employee.setHoursWorked(employeeHours[row]);
+        employee.setOvertimeHours(employeeOvertime[row]);
+        return employee;
+    }
+
+    private PayrollRecord toPayrollRecord(int row) {
+        return PayrollRecord.fromCents(recordEmployeeIds[row], dictionary.decode(recordNames[row]),
+                                       recordHours[row], recordOvertime[row],
+                                       recordGross[row], recordTax[row], recordNet[row],
+                                       PayDates.ofEpochDay(recordPayDays[row]));
+    }
+
+    private void growEmployees() {
+        int capacity = employeeIds.length * 2;
+        employeeIds = Arrays.copyOf(employeeIds, capacity);
+        employeeNames = Arrays.copyOf(employeeNames, capacity);
+        employeePositions = Arrays.copyOf(employeePositions, capacity);
+        baseSalaries = Arrays.copyOf(baseSalaries, capacity);
+        employeeHours = Arrays.copyOf(employeeHours, capacity);
+        employeeOvertime = Arrays.copyOf(employeeOvertime, capacity);
+    }
+
+    private void growRecords(int needed) {
+        // Grow by 1.5x: at millions of rows doubling wastes too much of the heap
+        int capacity = Math.max(needed, recordEmployeeIds.length + (recordEmployeeIds.length >> 1));
+        recordEmployeeIds = Arrays.copyOf(recordEmployeeIds, capacity);
+        recordNames = Arrays.copyOf(recordNames, capacity);
+        recordPayDays = Arrays.copyOf(recordPayDays, capacity);
+        recordHours = Arrays.copyOf(recordHours, capacity);
+        recordOvertime = Arrays.copyOf(recordOvertime, capacity);
+        recordGross = Arrays.copyOf(recordGross, capacity);
+        recordTax = Arrays.copyOf(recordTax, capacity);
+        recordNet = Arrays.copyOf(recordNet, capacity);
+    }
+
+    /**
+     * The history as it was when the view was taken, in getAllPayrollRecords()
+     * order. Holds the columns of that moment, whose rows are never changed
+     * afterwards, so reads need no lock.
+     */
+    private final class HistoryView implements PayrollRecordSource {
+        private final int[] employeeIds = recordEmployeeIds;
+        private final int[] names = recordNames;
+        private final String[] dictionaryNames = dictionary.names();
+        private final int[] payDays = recordPayDays;
+        private final double[] hours = recordHours;
+        private final double[] overtime = recordOvertime;
+        private final long[] gross = recordGross;
+        private final long[] tax = recordTax;
+        private final long[] net = recordNet;
+        private final int size = recordCount;
+        private final int[] starts = dayStarts;
+        private final int days = dayCount;
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public PayrollRecord get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            // Newest day first: index is in the last day whose first row is below size - index
+            int remaining = size - index;
+            int low = 0;
+            int high = days - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (starts[mid] < remaining) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            int dayEnd = low + 1 < days ? starts[low + 1] : size;
+            int row = starts[low] + index - (size - dayEnd);
+            return PayrollRecord.fromCents(employeeIds[row], dictionaryNames[names[row]], hours[row], overtime[row],
+                                           gross[row], tax[row], net[row], PayDates.ofEpochDay(payDays[row]));
+        }
+    }
+}
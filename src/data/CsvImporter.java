@@ -0,0 +1,292 @@
+package data;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Bulk import of employees and timesheet hours from CSV files.
+ *
+ * Files are streamed: rows are parsed one at a time into fixed-size batches of
+ * primitive arrays and each full batch goes to PayrollRepository.addEmployees()
+ * or updateHoursBatch(), so memory use depends on the batch size and not on the
+ * file size, and a durable store pays one journal flush per batch.
+ *
+ * The first row is a header naming the columns, in any order (case and
+ * spaces are ignored):
+ *   employees: name, position (or role), baseSalary (or salary)
+ *   hours:     employeeId (or id), hoursWorked (or hours), overtimeHours (or overtime, optional)
+ *
+ * A bad row (missing field, unparseable, infinite or negative number) is
+ * skipped and reported with its line number; the rest of the file is still
+ * imported. Hours rows for unknown employees are skipped by the store's batch
+ * update rather than looked up one by one, so they are reported once per
+ * batch, as a count with the batch's first and last line. Rows of a batch are
+ * applied together, so a failure part-way through a file leaves the batches
+ * before it imported.
+ */
+public class CsvImporter {
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+    // Errors past this many are counted but not kept
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final LatencyHistogram EMPLOYEE_IMPORTS = Metrics.histogram("import.employees");
+    private static final LatencyHistogram HOURS_IMPORTS = Metrics.histogram("import.hours");
+    private static final Counter ROWS_IMPORTED = Metrics.counter("import.rows");
+    private static final Counter ROWS_REJECTED = Metrics.counter("import.rejectedRows");
+
+    private final PayrollRepository dataManager;
+    private final int batchSize;
+
+    public CsvImporter(PayrollRepository dataManager) {
+        this(dataManager, DEFAULT_BATCH_SIZE);
+    }
+
+    public CsvImporter(PayrollRepository dataManager, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.dataManager = dataManager;
+        this.batchSize = batchSize;
+    }
+
+    public ImportResult importEmployees(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importEmployees(reader);
+        }
+    }
+
+    public ImportResult importEmployees(Reader reader) throws IOException {
+        long start = System.nanoTime();
+        CsvReader csv = new CsvReader(reader);
+        ImportResult result = new ImportResult();
+        if (!csv.next()) {
+            return result.finish(start, EMPLOYEE_IMPORTS);
+        }
+        int nameColumn = column(csv, "name", null, true);
+        int positionColumn = column(csv, "position", "role", true);
+        int salaryColumn = column(csv, "basesalary", "salary", true);
+
+        String[] names = new String[batchSize];
+        String[] positions = new String[batchSize];
+        double[] salaries = new double[batchSize];
+        int count = 0;
+        while (csv.next()) {
+            result.rowsRead++;
+            String name = field(csv, nameColumn);
+            String position = field(csv, positionColumn);
+            String salary = field(csv, salaryColumn);
+            if (name == null || name.isEmpty() || position == null || position.isEmpty() || salary == null) {
+                result.error(csv.getLineNumber(), "Missing name, position or salary");
+                continue;
+            }
+            double baseSalary = parseAmount(salary);
+            // NaN when unparseable; "Infinity" and "1e999" parse but are not amounts
+            if (!Double.isFinite(baseSalary) || baseSalary < 0) {
+                result.error(csv.getLineNumber(), "Invalid salary '" + salary + "'");
+                continue;
+            }
+            names[count] = name;
+            // Positions repeat across thousands of rows; share one string per position
+            positions[count] = position.intern();
+            salaries[count] = baseSalary;
+            if (++count == batchSize) {
+                result.rowsImported += dataManager.addEmployees(names, positions, salaries, count).length;
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            result.rowsImported += dataManager.addEmployees(names, positions, salaries, count).length;
+        }
+        return result.finish(start, EMPLOYEE_IMPORTS);
+    }
+
+    public ImportResult importHours(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importHours(reader);
+        }
+    }
+
+    public ImportResult importHours(Reader reader) throws IOException {
+        long start = System.nanoTime();
+        CsvReader csv = new CsvReader(reader);
+        ImportResult result = new ImportResult();
+        if (!csv.next()) {
+            return result.finish(start, HOURS_IMPORTS);
+        }
+        int idColumn = column(csv, "employeeid", "id", true);
+        int hoursColumn = column(csv, "hoursworked", "hours", true);
+        int overtimeColumn = column(csv, "overtimehours", "overtime", false);
+
+        int[] ids = new int[batchSize];
+        double[] hours = new double[batchSize];
+        double[] overtime = new double[batchSize];
+        int count = 0;
+        // Lines of the batch's first and last rows
+        long firstLine = 0;
+        long lastLine = 0;
+        while (csv.next()) {
+            result.rowsRead++;
+            String id = field(csv, idColumn);
+            String hoursText = field(csv, hoursColumn);
+            String overtimeText = overtimeColumn < 0 ? "0" : field(csv, overtimeColumn);
+            if (id == null || hoursText == null || overtimeText == null) {
+                result.error(csv.getLineNumber(), "Missing employee ID or hours");
+                continue;
+            }
+            int employeeId;
+            try {
+                employeeId = Integer.parseInt(id);
+            } catch (NumberFormatException e) {
+                result.error(csv.getLineNumber(), "Invalid employee ID '" + id + "'");
+                continue;
+            }
+            double hoursWorked = parseAmount(hoursText);
+            double overtimeHours = overtimeText.isEmpty() ? 0 : parseAmount(overtimeText);
+            if (!Double.isFinite(hoursWorked) || hoursWorked < 0
+                    || !Double.isFinite(overtimeHours) || overtimeHours < 0) {
+                result.error(csv.getLineNumber(), "Invalid hours '" + hoursText + "', '" + overtimeText + "'");
+                continue;
+            }
+            lastLine = csv.getLineNumber();
+            if (count == 0) {
+                firstLine = lastLine;
+            }
+            ids[count] = employeeId;
+            hours[count] = hoursWorked;
+            overtime[count] = overtimeHours;
+            if (++count == batchSize) {
+                updateHours(ids, hours, overtime, count, firstLine, lastLine, result);
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            updateHours(ids, hours, overtime, count, firstLine, lastLine, result);
+        }
+        return result.finish(start, HOURS_IMPORTS);
+    }
+
+    // The store skips unknown IDs, so every row it did not update named one
+    private void updateHours(int[] ids, double[] hours, double[] overtime, int count,
+                             long firstLine, long lastLine, ImportResult result) {
+        int updated = dataManager.updateHoursBatch(ids, hours, overtime, count);
+        result.rowsImported += updated;
+        if (updated < count) {
+            result.error(firstLine, count - updated,
+                         (count - updated) + " of the " + count + " rows up to line " + lastLine
+                         + " name unknown employees");
+        }
+    }
+
+    // Finds a header column by name or alias; -1 if it is optional and absent
+    private static int column(CsvReader header, String name, String alias, boolean required) throws IOException {
+        for (int i = 0; i < header.getFieldCount(); i++) {
+            String key = header.getField(i).replace(" ", "").replace("_", "").toLowerCase(Locale.ROOT);
+            if (key.equals(name) || key.equals(alias)) {
+                return i;
+            }
+        }
+        if (required) {
+            throw new IOException("CSV header has no '" + name + "' column");
+        }
+        return -1;
+    }
+
+    private static String field(CsvReader csv, int column) {
+        return column < csv.getFieldCount() ? csv.getField(column) : null;
+    }
+
+    // Parses a plain or "$1,234.56" style amount; NaN if it is not a number
+    private static double parseAmount(String text) {
+        String number = text.startsWith("$") ? text.substring(1) : text;
+        if (number.indexOf(',') >= 0) {
+            number = number.replace(",", "");
+        }
+        try {
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    public static final class RowError {
+        private final long lineNumber;
+        private final String message;
+
+        RowError(long lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+
+        public long getLineNumber() { return lineNumber; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "Line " + lineNumber + ": " + message;
+        }
+    }
+
+    public static final class ImportResult {
+        private long rowsRead;
+        private long rowsImported;
+        private long errorCount;
+        // Rejected rows that errors covers
+        private long listedErrorCount;
+        private final List<RowError> errors = new ArrayList<>();
+        private long elapsedNanos;
+
+        private void error(long lineNumber, String message) {
+            error(lineNumber, 1, message);
+        }
+
+        // One error reported for several rejected rows
+        private void error(long lineNumber, long rows, String message) {
+            errorCount += rows;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(lineNumber, message));
+                listedErrorCount += rows;
+            }
+        }
+
+        private ImportResult finish(long start, LatencyHistogram histogram) {
+            elapsedNanos = System.nanoTime() - start;
+            histogram.recordNanos(elapsedNanos);
+            ROWS_IMPORTED.add(rowsImported);
+            ROWS_REJECTED.add(errorCount);
+            return this;
+        }
+
+        // Data rows, not counting the header or blank lines
+        public long getRowsRead() { return rowsRead; }
+        public long getRowsImported() { return rowsImported; }
+        public long getErrorCount() { return errorCount; }
+        // The first MAX_REPORTED_ERRORS errors in the order found, which puts a batch's unknown
+        // employees after its other errors; one error may cover several rows
+        public List<RowError> getErrors() { return Collections.unmodifiableList(errors); }
+        // Rejected rows that getErrors() does not cover
+        public long getUnlistedErrorCount() { return errorCount - listedErrorCount; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        public double getElapsedMillis() { return elapsedNanos / 1_000_000.0; }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rowsRead * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ImportResult[Rows: %d, Imported: %d, Errors: %d, Time: %.1f ms, Rate: %.0f rows/s]",
+                                 rowsRead, rowsImported, errorCount, getElapsedMillis(), getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming CSV tokenizer: comma separated, fields optionally quoted
+ * with doubled quotes inside, records ending in LF or CRLF. Reads through a
+ * fixed char buffer and reuses one field array, so memory stays constant no
+ * matter how large the input is. Not thread-safe.
+ */
+class CsvReader {
+    private final Reader in;
+    private final char[] buffer = new char[64 * 1024];
+    private int position;
+    private int limit;
+
+    private final StringBuilder field = new StringBuilder(64);
+    private String[] fields = new String[8];
+    private int fieldCount;
+    // Line the current record starts on, 1-based
+    private long lineNumber;
+    private long nextLine = 1;
+
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    // Reads the next non-blank record; returns false at end of input
+    boolean next() throws IOException {
+        while (true) {
+            if (!fill()) {
+                return false;
+            }
+            lineNumber = nextLine;
+            readRecord();
+            if (fieldCount > 1 || !fields[0].isEmpty()) {
+                return true;
+            }
+        }
+    }
+
+    private void readRecord() throws IOException {
+        fieldCount = 0;
+        field.setLength(0);
+        boolean quoted = false;
+        while (fill()) {
+            char c = buffer[position++];
+            if (quoted) {
+                if (c == '"') {
+                    if (fill() && buffer[position] == '"') {
+                        field.append('"');
+                        position++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        nextLine++;
+                    }
+                    field.append(c);
+                }
+            } else if (c == ',') {
+                endField();
+            } else if (c == '\n') {
+                nextLine++;
+                break;
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        endField();
+    }
+
+    private void endField() {
+        if (fieldCount == fields.length) {
+            fields = Arrays.copyOf(fields, fieldCount * 2);
+        }
+        fields[fieldCount++] = field.toString();
+        field.setLength(0);
+    }
+
+    private boolean fill() throws IOException {
+        while (position == limit) {
+            int read = in.read(buffer, 0, buffer.length);
+            if (read < 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+        }
+        return true;
+    }
+
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    String getField(int index) {
+        return fields[index].trim();
+    }
+
+    long getLineNumber() {
+        return lineNumber;
+    }
+}
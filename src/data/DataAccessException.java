@@ -0,0 +1,12 @@
+package data;
+
+/**
+ * Unchecked wrapper for a failure in a persistent store, such as an SQLException
+ * from JdbcDataManager, thrown from data-layer methods that do not declare
+ * checked exceptions.
+ */
+public class DataAccessException extends RuntimeException {
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,33 @@
+package data;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// The listener list behind PayrollRepository.addEmployeeListener(); fires on the caller's thread
+final class EmployeeListeners {
+    private final List<PayrollRepository.EmployeeListener> listeners = new CopyOnWriteArrayList<>();
+
+    void add(PayrollRepository.EmployeeListener listener) {
+        listeners.add(listener);
+    }
+
+    void remove(PayrollRepository.EmployeeListener listener) {
+        listeners.remove(listener);
+    }
+
+    void fire(int employeeId) {
+        for (PayrollRepository.EmployeeListener listener : listeners) {
+            listener.employeeChanged(employeeId);
+        }
+    }
+
+    // The first count IDs
+    void fire(int[] employeeIds, int count) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            fire(employeeIds[i]);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package data;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Fixed-size pool of JDBC connections, each with its own prepared statement
+ * cache. Connections are opened up front with auto-commit off; a borrower
+ * has the connection to itself until it is released, so its cached statements
+ * need no locking. Drivers are found through the JDBC service loader, so
+ * nothing here depends on a particular database at compile time.
+ */
+class JdbcConnectionPool implements AutoCloseable {
+    private final BlockingQueue<PooledConnection> idle;
+    private final List<PooledConnection> all = new ArrayList<>();
+
+    JdbcConnectionPool(String url, int size) throws SQLException {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        idle = new ArrayBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = DriverManager.getConnection(url);
+                connection.setAutoCommit(false);
+                PooledConnection pooled = new PooledConnection(connection);
+                all.add(pooled);
+                idle.add(pooled);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // Blocks until a connection is free
+    PooledConnection borrow() {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return idle.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void release(PooledConnection connection) {
+        idle.add(connection);
+    }
+
+    @Override
+    public void close() {
+        for (PooledConnection pooled : all) {
+            try {
+                pooled.connection.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing database connection: " + e.getMessage());
+            }
+        }
+        all.clear();
+    }
+
+    static final class PooledConnection {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        Connection getConnection() {
+            return connection;
+        }
+
+        // Prepared once per connection and kept open for reuse
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+    }
+}
@@ -0,0 +1,588 @@
+package data;
+
+import data.JdbcConnectionPool.PooledConnection;
+import model.Employee;
+import model.PayPeriod;
+import model.PayrollRecord;
+import model.PayrollRun;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PayrollRepository backed by a relational database over JDBC. Written
+ * against plain SQL that SQLite and H2 both accept; the driver only has to be
+ * on the class path at runtime (scripts/setup.bat downloads the SQLite one
+ * into lib/).
+ *
+ * Tables use the column names of the old DatabaseManager, so an existing
+ * payroll.db opens as is. What changed:
+ * - Connections come from a fixed pool and each keeps its prepared statements,
+ *   so a statement is parsed once per connection, not once per call.
+ * - Every method runs in one transaction. savePayrollRecords() inserts a whole
+ *   payroll run with JDBC batches in a single transaction, so saving a run costs
+ *   one commit instead of one per record.
+ * - payroll_records is indexed on (employee_id, pay_date) for employee history
+ *   and on (pay_date DESC, id) for the history order, and queries name their
+ *   columns instead of SELECT *.
+ * - getPayrollRecordsPage() pages through history by key (the last pay date and
+ *   row ID seen) rather than OFFSET, so every page costs the same.
+ * - commitPayrollRun() finds the records it replaces with one range query per
+ *   month in the chunk, deletes them, inserts the new ones and stores the run
+ *   state in payroll_runs, all in one transaction.
+ *
+ * IDs are assigned here, starting after the largest ID in the tables, so only
+ * one JdbcDataManager should write to a database at a time. SQL errors are
+ * thrown as DataAccessException. History order matches SimpleDataManager: most
+ * recent pay date first, then save order.
+ */
+public class JdbcDataManager implements PayrollRepository {
+    public static final int DEFAULT_POOL_SIZE = 4;
+    // Rows per executeBatch() call when saving a payroll run
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String EMPLOYEE_COLUMNS =
+        "id, name, role, base_salary, hours_worked, overtime_hours";
+    private static final String RECORD_COLUMNS =
+        "id, employee_id, employee_name, hours_worked, overtime_hours, gross_pay, tax, net_pay, pay_date";
+    private static final String HISTORY_ORDER = " ORDER BY pay_date DESC, id";
+
+    private static final String INSERT_EMPLOYEE =
+        "INSERT INTO employees (" + EMPLOYEE_COLUMNS + ") VALUES (?, ?, ?, ?, 0, 0)";
+    private static final String SELECT_EMPLOYEES = "SELECT " + EMPLOYEE_COLUMNS + " FROM employees ORDER BY id";
+    private static final String SELECT_EMPLOYEE = "SELECT " + EMPLOYEE_COLUMNS + " FROM employees WHERE id = ?";
+    private static final String SELECT_EMPLOYEES_BY_ROLE =
+        "SELECT " + EMPLOYEE_COLUMNS + " FROM employees WHERE role = ? ORDER BY id";
+    private static final String UPDATE_HOURS =
+        "UPDATE employees SET hours_worked = ?, overtime_hours = ? WHERE id = ?";
+    private static final String DELETE_EMPLOYEE = "DELETE FROM employees WHERE id = ?";
+    private static final String INSERT_RECORD =
+        "INSERT INTO payroll_records (" + RECORD_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_RECORDS = "SELECT " + RECORD_COLUMNS + " FROM payroll_records";
+    private static final String SELECT_FIRST_PAGE = SELECT_RECORDS + HISTORY_ORDER + " LIMIT ?";
+    // The first condition bounds the index range; the second skips rows already seen on that date
+    private static final String SELECT_NEXT_PAGE = SELECT_RECORDS
+        + " WHERE pay_date <= ? AND (pay_date < ? OR id > ?)" + HISTORY_ORDER + " LIMIT ?";
+    private static final String SELECT_RECORDS_BETWEEN =
+        SELECT_RECORDS + " WHERE pay_date >= ? AND pay_date <= ?" + HISTORY_ORDER;
+    private static final String SELECT_RECORDS_FOR_EMPLOYEE =
+        SELECT_RECORDS + " WHERE employee_id = ?" + HISTORY_ORDER;
+    private static final String COUNT_RECORDS = "SELECT COUNT(*) FROM payroll_records";
+    // Narrowed to the chunk's ID range; rows for other employees in the range are skipped
+    private static final String SELECT_MONTH_RECORDS = SELECT_RECORDS
+        + " WHERE pay_date >= ? AND pay_date <= ? AND employee_id >= ? AND employee_id <= ?";
+    private static final String DELETE_MONTH_RECORDS =
+        "DELETE FROM payroll_records WHERE employee_id = ? AND pay_date >= ? AND pay_date <= ?";
+    private static final String RUN_COLUMNS = "period, pay_date, status, last_employee_id, chunk_count, record_count";
+    private static final String SELECT_RUN = "SELECT " + RUN_COLUMNS + " FROM payroll_runs WHERE period = ?";
+    private static final String DELETE_RUN = "DELETE FROM payroll_runs WHERE period = ?";
+    private static final String INSERT_RUN =
+        "INSERT INTO payroll_runs (" + RUN_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcConnectionPool pool;
+    private final AtomicInteger nextEmployeeId;
+    private final AtomicLong nextRecordId;
+    // Fired after the change commits
+    private final EmployeeListeners employeeListeners = new EmployeeListeners();
+
+    public JdbcDataManager(String url) throws SQLException {
+        this(url, DEFAULT_POOL_SIZE);
+    }
+
+    // Use a pool size of 1 for SQLite files written from several threads; it allows one writer
+    public JdbcDataManager(String url, int poolSize) throws SQLException {
+        pool = new JdbcConnectionPool(url, poolSize);
+        try {
+            createTables();
+            nextEmployeeId = new AtomicInteger((int) maxId("employees") + 1);
+            nextRecordId = new AtomicLong(maxId("payroll_records") + 1);
+        } catch (SQLException | RuntimeException e) {
+            pool.close();
+            throw e;
+        }
+    }
+
+    private void createTables() throws SQLException {
+        PooledConnection pooled = pool.borrow();
+        try (Statement statement = pooled.getConnection().createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS employees ("
+                + "id INTEGER PRIMARY KEY, "
+                + "name VARCHAR(255) NOT NULL, "
+                + "role VARCHAR(255) NOT NULL, "
+                + "base_salary DOUBLE PRECISION NOT NULL, "
+                + "hours_worked DOUBLE PRECISION DEFAULT 0, "
+                + "overtime_hours DOUBLE PRECISION DEFAULT 0)");
+            statement.execute("CREATE TABLE IF NOT EXISTS payroll_records ("
+                + "id INTEGER PRIMARY KEY, "
+                + "employee_id INTEGER, "
+                + "employee_name VARCHAR(255), "
+                + "hours_worked DOUBLE PRECISION, "
+                + "overtime_hours DOUBLE PRECISION, "
+                + "gross_pay DOUBLE PRECISION, "
+                + "tax DOUBLE PRECISION, "
+                + "net_pay DOUBLE PRECISION, "
+                + "pay_date VARCHAR(10))");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_payroll_employee_date "
+                + "ON payroll_records (employee_id, pay_date)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_payroll_date_id "
+                + "ON payroll_records (pay_date DESC, id)");
+            statement.execute("CREATE TABLE IF NOT EXISTS payroll_runs ("
+                + "period VARCHAR(7) PRIMARY KEY, "
+                + "pay_date VARCHAR(10) NOT NULL, "
+                + "status VARCHAR(16) NOT NULL, "
+                + "last_employee_id INTEGER NOT NULL, "
+                + "chunk_count INTEGER NOT NULL, "
+                + "record_count INTEGER NOT NULL)");
+            pooled.getConnection().commit();
+        } finally {
+            pool.release(pooled);
+        }
+    }
+
+    private long maxId(String table) throws SQLException {
+        PooledConnection pooled = pool.borrow();
+        try (Statement statement = pooled.getConnection().createStatement();
+             ResultSet rows = statement.executeQuery("SELECT MAX(id) FROM " + table)) {
+            long max = rows.next() ? rows.getLong(1) : 0;
+            pooled.getConnection().commit();
+            return max;
+        } finally {
+            pool.release(pooled);
+        }
+    }
+
+    public int addEmployee(String name, String role, double baseSalary) {
+        int id = nextEmployeeId.getAndIncrement();
+        inTransaction("adding employee", pooled -> {
+            PreparedStatement insert = pooled.prepare(INSERT_EMPLOYEE);
+            insert.setInt(1, id);
+            insert.setString(2, name);
+            insert.setString(3, role);
+            insert.setDouble(4, baseSalary);
+            return insert.executeUpdate();
+        });
+        employeeListeners.fire(id);
+        return id;
+    }
+
+    // Inserts the batch in one transaction
+    @Override
+    public int[] addEmployees(String[] names, String[] roles, double[] baseSalaries, int count) {
+        if (count < 0 || count > names.length || count > roles.length || count > baseSalaries.length) {
+            throw new IndexOutOfBoundsException("Batch of " + count + " exceeds an array");
+        }
+        int firstId = nextEmployeeId.getAndAdd(count);
+        int[] added = inTransaction("adding employees", pooled -> {
+            PreparedStatement insert = pooled.prepare(INSERT_EMPLOYEE);
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = firstId + i;
+                insert.setInt(1, ids[i]);
+                insert.setString(2, names[i]);
+                insert.setString(3, roles[i]);
+                insert.setDouble(4, baseSalaries[i]);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            return ids;
+        });
+        employeeListeners.fire(added, count);
+        return added;
+    }
+
+    public List<Employee> getAllEmployees() {
+        return inTransaction("retrieving employees", pooled -> readEmployees(pooled.prepare(SELECT_EMPLOYEES)));
+    }
+
+    public Employee getEmployee(int id) {
+        return inTransaction("retrieving employee", pooled -> {
+            PreparedStatement select = pooled.prepare(SELECT_EMPLOYEE);
+            select.setInt(1, id);
+            List<Employee> employees = readEmployees(select);
+            return employees.isEmpty() ? null : employees.get(0);
+        });
+    }
+
+    public List<Employee> getEmployeesByPosition(String position) {
+        return inTransaction("retrieving employees", pooled -> {
+            PreparedStatement select = pooled.prepare(SELECT_EMPLOYEES_BY_ROLE);
+            select.setString(1, position);
+            return readEmployees(select);
+        });
+    }
+
+    public void updateEmployeeHours(int employeeId, double hoursWorked, double overtimeHours) {
+        inTransaction("updating employee hours", pooled -> {
+            PreparedStatement update = pooled.prepare(UPDATE_HOURS);
+            update.setDouble(1, hoursWorked);
+            update.setDouble(2, overtimeHours);
+            update.setInt(3, employeeId);
+            return update.executeUpdate();
+        });
+        employeeListeners.fire(employeeId);
+    }
+
+    // Updates the batch in one transaction
+    @Override
+    public int updateHoursBatch(int[] employeeIds, double[] hoursWorked, double[] overtimeHours, int count) {
+        if (count < 0 || count > employeeIds.length || count > hoursWorked.length || count > overtimeHours.length) {
+            throw new IndexOutOfBoundsException("Batch of " + count + " exceeds an array");
+        }
+        int batchUpdated = inTransaction("updating employee hours", pooled -> {
+            PreparedStatement update = pooled.prepare(UPDATE_HOURS);
+            for (int i = 0; i < count; i++) {
+                update.setDouble(1, hoursWorked[i]);
+                update.setDouble(2, overtimeHours[i]);
+                update.setInt(3, employeeIds[i]);
+                update.addBatch();
+            }
+            int updated = 0;
+            for (int rows : update.executeBatch()) {
+                // Drivers may answer SUCCESS_NO_INFO instead of a row count
+                if (rows > 0 || rows == Statement.SUCCESS_NO_INFO) {
+                    updated++;
+                }
+            }
+            return updated;
+        });
+        employeeListeners.fire(employeeIds, count);
+        return batchUpdated;
+    }
+
+    public void removeEmployee(int employeeId) {
+        inTransaction("removing employee", pooled -> {
+            PreparedStatement delete = pooled.prepare(DELETE_EMPLOYEE);
+            delete.setInt(1, employeeId);
+            return delete.executeUpdate();
+        });
+        employeeListeners.fire(employeeId);
+    }
+
+    public void savePayrollRecord(PayrollRecord record) {
+        savePayrollRecords(Collections.singletonList(record));
+    }
+
+    // Saves all records in one transaction; either all of them are saved or none
+    @Override
+    public int savePayrollRecords(Collection<? extends PayrollRecord> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        long firstId = nextRecordId.getAndAdd(records.size());
+        return inTransaction("saving payroll records", pooled -> {
+            insertRecords(pooled, records, firstId);
+            return records.size();
+        });
+    }
+
+    private static void insertRecords(PooledConnection pooled, Collection<? extends PayrollRecord> records,
+                                      long firstId) throws SQLException {
+        PreparedStatement insert = pooled.prepare(INSERT_RECORD);
+        long id = firstId;
+        int pending = 0;
+        for (PayrollRecord record : records) {
+            insert.setLong(1, id++);
+            insert.setInt(2, record.getEmployeeId());
+            insert.setString(3, record.getEmployeeName());
+            insert.setDouble(4, record.getHoursWorked());
+            insert.setDouble(5, record.getOvertimeHours());
+            insert.setDouble(6, record.getGrossPay());
+            insert.setDouble(7, record.getTax());
+            insert.setDouble(8, record.getNetPay());
+            insert.setString(9, record.getPayDate().toString());
+            insert.addBatch();
+            if (++pending == BATCH_SIZE) {
+                insert.executeBatch();
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            insert.executeBatch();
+        }
+    }
+
+    // The whole chunk and the run state commit in one transaction, or none of it does
+    public List<PayrollRecord> commitPayrollRun(PayrollRun run, Collection<? extends PayrollRecord> records) {
+        long firstId = nextRecordId.getAndAdd(records.size());
+        return inTransaction("committing payroll run", pooled -> {
+            List<PayrollRecord> replaced = new ArrayList<>();
+            // The last record of this call per month and employee; earlier ones are replaced before being stored
+            Map<YearMonth, Map<Integer, PayrollRecord>> byMonth = new HashMap<>();
+            for (PayrollRecord record : records) {
+                PayrollRecord earlier = byMonth.computeIfAbsent(record.getPayPeriod(), month -> new LinkedHashMap<>())
+                                              .put(record.getEmployeeId(), record);
+                if (earlier != null) {
+                    replaced.add(earlier);
+                }
+            }
+
+            List<PayrollRecord> kept = new ArrayList<>(records.size());
+            PreparedStatement delete = pooled.prepare(DELETE_MONTH_RECORDS);
+            int pending = 0;
+            for (Map.Entry<YearMonth, Map<Integer, PayrollRecord>> entry : byMonth.entrySet()) {
+                String from = entry.getKey().atDay(1).toString();
+                String to = entry.getKey().atEndOfMonth().toString();
+                Map<Integer, PayrollRecord> latest = entry.getValue();
+                kept.addAll(latest.values());
+
+                PreparedStatement select = pooled.prepare(SELECT_MONTH_RECORDS);
+                select.setString(1, from);
+                select.setString(2, to);
+                select.setInt(3, Collections.min(latest.keySet()));
+                select.setInt(4, Collections.max(latest.keySet()));
+                Set<Integer> deleted = new HashSet<>();
+                for (PayrollRecord old : readRecords(select, null)) {
+                    if (latest.containsKey(old.getEmployeeId())) {
+                        replaced.add(old);
+                        if (deleted.add(old.getEmployeeId())) {
+                            delete.setInt(1, old.getEmployeeId());
+                            delete.setString(2, from);
+                            delete.setString(3, to);
+                            delete.addBatch();
+                            if (++pending == BATCH_SIZE) {
+                                delete.executeBatch();
+                                pending = 0;
+                            }
+                        }
+                    }
+                }
+            }
+            if (pending > 0) {
+                delete.executeBatch();
+            }
+            insertRecords(pooled, kept, firstId);
+
+            PreparedStatement deleteRun = pooled.prepare(DELETE_RUN);
+            deleteRun.setString(1, run.getPeriod().getMonth().toString());
+            deleteRun.executeUpdate();
+            PreparedStatement insertRun = pooled.prepare(INSERT_RUN);
+            insertRun.setString(1, run.getPeriod().getMonth().toString());
+            insertRun.setString(2, run.getPeriod().getPayDate().toString());
+            insertRun.setString(3, run.getStatus().name());
+            insertRun.setInt(4, run.getLastEmployeeId());
+            insertRun.setInt(5, run.getChunkCount());
+            insertRun.setInt(6, run.getRecordCount());
+            insertRun.executeUpdate();
+            return replaced;
+        });
+    }
+
+    public PayrollRun getPayrollRun(YearMonth period) {
+        return inTransaction("retrieving payroll run", pooled -> {
+            PreparedStatement select = pooled.prepare(SELECT_RUN);
+            select.setString(1, period.toString());
+            try (ResultSet rows = select.executeQuery()) {
+                if (!rows.next()) {
+                    return null;
+                }
+                return new PayrollRun(new PayPeriod(period, LocalDate.parse(rows.getString(2))),
+                                      PayrollRun.Status.valueOf(rows.getString(3)),
+                                      rows.getInt(4), rows.getInt(5), rows.getInt(6));
+            }
+        });
+    }
+
+    public List<PayrollRecord> getAllPayrollRecords() {
+        return inTransaction("retrieving payroll records",
+                             pooled -> readRecords(pooled.prepare(SELECT_RECORDS + HISTORY_ORDER), null));
+    }
+
+    // A snapshot read in one query; use getPayrollRecordsPage() to page through large histories
+    public PayrollRecordSource getPayrollHistory() {
+        return PayrollRecordSource.of(getAllPayrollRecords());
+    }
+
+    // Inclusive of both dates
+    public List<PayrollRecord> getPayrollRecordsBetween(LocalDate from, LocalDate to) {
+        return inTransaction("retrieving payroll records", pooled -> {
+            PreparedStatement select = pooled.prepare(SELECT_RECORDS_BETWEEN);
+            select.setString(1, from.toString());
+            select.setString(2, to.toString());
+            return readRecords(select, null);
+        });
+    }
+
+    public List<PayrollRecord> getPayrollRecordsForDate(LocalDate payDate) {
+        return getPayrollRecordsBetween(payDate, payDate);
+    }
+
+    public List<PayrollRecord> getPayrollRecordsForPeriod(YearMonth period) {
+        return getPayrollRecordsBetween(period.atDay(1), period.atEndOfMonth());
+    }
+
+    public List<PayrollRecord> getPayrollRecordsForEmployee(int employeeId) {
+        return inTransaction("retrieving payroll records", pooled -> {
+            PreparedStatement select = pooled.prepare(SELECT_RECORDS_FOR_EMPLOYEE);
+            select.setInt(1, employeeId);
+            return readRecords(select, null);
+        });
+    }
+
+    public List<PayrollRecord> getLatestPayrollRecords(int count) {
+        if (count < 1) {
+            return Collections.emptyList();
+        }
+        return getPayrollRecordsPage(null, count).getRecords();
+    }
+
+    /**
+     * Returns up to pageSize records in history order, starting after the last
+     * record of previous, or from the start when previous is null.
+     */
+    public Page getPayrollRecordsPage(Page previous, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return inTransaction("retrieving payroll records", pooled -> {
+            PreparedStatement select;
+            if (previous == null) {
+                select = pooled.prepare(SELECT_FIRST_PAGE);
+                select.setInt(1, pageSize + 1);
+            } else {
+                select = pooled.prepare(SELECT_NEXT_PAGE);
+                select.setString(1, previous.lastPayDate);
+                select.setString(2, previous.lastPayDate);
+                select.setLong(3, previous.lastId);
+                select.setInt(4, pageSize + 1);
+            }
+            long[] ids = new long[pageSize + 1];
+            List<PayrollRecord> records = readRecords(select, ids);
+            boolean more = records.size() > pageSize;
+            if (more) {
+                records.remove(pageSize);
+            }
+            if (records.isEmpty()) {
+                return new Page(records, previous == null ? null : previous.lastPayDate,
+                                previous == null ? 0 : previous.lastId, false);
+            }
+            int last = records.size() - 1;
+            return new Page(records, records.get(last).getPayDate().toString(), ids[last], more);
+        });
+    }
+
+    public int getPayrollRecordCount() {
+        return inTransaction("counting payroll records", pooled -> {
+            try (ResultSet rows = pooled.prepare(COUNT_RECORDS).executeQuery()) {
+                return rows.next() ? rows.getInt(1) : 0;
+            }
+        });
+    }
+
+    private static List<Employee> readEmployees(PreparedStatement select) throws SQLException {
+        List<Employee> employees = new ArrayList<>();
+        try (ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                Employee employee = new Employee(rows.getInt(1), rows.getString(2), rows.getString(3).intern(),
+                                                 rows.getDouble(4));
+                employee.setHoursWorked(rows.getDouble(5));
+                employee.setOvertimeHours(rows.getDouble(6));
+                employees.add(employee);
+            }
+        }
+        return employees;
+    }
+
+    // Reads rows in RECORD_COLUMNS order; when ids is given, stores each row's ID at its index
+    private static List<PayrollRecord> readRecords(PreparedStatement select, long[] ids) throws SQLException {
+        List<PayrollRecord> records = new ArrayList<>();
+        // Each row's name is a new String; an employee paid in several months gets one
+        NameDictionary names = new NameDictionary();
+        String dateText = null;
+        LocalDate payDate = null;
+        try (ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                // Rows come grouped by date, so parse each date once
+                String text = rows.getString(9);
+                if (!text.equals(dateText)) {
+                    dateText = text;
+                    payDate = LocalDate.parse(text);
+                }
+                records.add(new PayrollRecord(rows.getInt(2), names.share(rows.getString(3)), rows.getDouble(4),
+                                              rows.getDouble(5), rows.getDouble(6), rows.getDouble(7),
+                                              rows.getDouble(8), payDate));
+                if (ids != null) {
+                    ids[records.size() - 1] = rows.getLong(1);
+                }
+            }
+        }
+        return records;
+    }
+
+    private interface SqlWork<T> {
+        T run(PooledConnection connection) throws SQLException;
+    }
+
+    // Runs work on a pooled connection and commits, or rolls back and rethrows as DataAccessException
+    private <T> T inTransaction(String action, SqlWork<T> work) {
+        PooledConnection pooled = pool.borrow();
+        boolean committed = false;
+        try {
+            T result = work.run(pooled);
+            pooled.getConnection().commit();
+            committed = true;
+            return result;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error " + action + ": " + e.getMessage(), e);
+        } finally {
+            if (!committed) {
+                try {
+                    pooled.getConnection().rollback();
+                } catch (SQLException rollbackError) {
+                    System.err.println("Error rolling back: " + rollbackError.getMessage());
+                }
+            }
+            pool.release(pooled);
+        }
+    }
+
+    @Override
+    public void addEmployeeListener(EmployeeListener listener) {
+        employeeListeners.add(listener);
+    }
+
+    @Override
+    public void removeEmployeeListener(EmployeeListener listener) {
+        employeeListeners.remove(listener);
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    /**
+     * One page of payroll history. Pass it back to getPayrollRecordsPage() to
+     * read the next page.
+     */
+    public static final class Page {
+        private final List<PayrollRecord> records;
+        private final String lastPayDate;
+        private final long lastId;
+        private final boolean hasMore;
+
+        Page(List<PayrollRecord> records, String lastPayDate, long lastId, boolean hasMore) {
+            this.records = Collections.unmodifiableList(records);
+            this.lastPayDate = lastPayDate;
+            this.lastId = lastId;
+            this.hasMore = hasMore;
+        }
+
+        public List<PayrollRecord> getRecords() { return records; }
+        public boolean hasNextPage() { return hasMore; }
+    }
+}
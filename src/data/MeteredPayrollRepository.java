@@ -0,0 +1,240 @@
+package data;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.Employee;
+import model.PayrollRecord;
+import model.PayrollRun;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Records the latency of every call into another PayrollRepository in a
+ * "data.<method>" histogram, and the number of employees and records read
+ * and written in "data.*" counters. It works the same in front of any store,
+ * so measurements of SimpleDataManager and JdbcDataManager compare directly.
+ *
+ * Only wrap a store when Metrics.ENABLED (see wrap()); without metrics it
+ * would add a call per operation for nothing.
+ */
+public class MeteredPayrollRepository implements PayrollRepository {
+    private static final LatencyHistogram ADD_EMPLOYEE = Metrics.histogram("data.addEmployee");
+    private static final LatencyHistogram ADD_EMPLOYEES = Metrics.histogram("data.addEmployees");
+    private static final LatencyHistogram GET_ALL_EMPLOYEES = Metrics.histogram("data.getAllEmployees");
+    private static final LatencyHistogram GET_EMPLOYEE = Metrics.histogram("data.getEmployee");
+    private static final LatencyHistogram GET_EMPLOYEES_BY_POSITION = Metrics.histogram("data.getEmployeesByPosition");
+    private static final LatencyHistogram UPDATE_HOURS = Metrics.histogram("data.updateEmployeeHours");
+    private static final LatencyHistogram UPDATE_HOURS_BATCH = Metrics.histogram("data.updateHoursBatch");
+    private static final LatencyHistogram REMOVE_EMPLOYEE = Metrics.histogram("data.removeEmployee");
+    private static final LatencyHistogram SAVE_RECORD = Metrics.histogram("data.savePayrollRecord");
+    private static final LatencyHistogram SAVE_RECORDS = Metrics.histogram("data.savePayrollRecords");
+    private static final LatencyHistogram COMMIT_RUN = Metrics.histogram("data.commitPayrollRun");
+    private static final LatencyHistogram GET_RUN = Metrics.histogram("data.getPayrollRun");
+    private static final LatencyHistogram GET_ALL_RECORDS = Metrics.histogram("data.getAllPayrollRecords");
+    private static final LatencyHistogram GET_HISTORY = Metrics.histogram("data.getPayrollHistory");
+    private static final LatencyHistogram GET_RECORDS_BETWEEN = Metrics.histogram("data.getPayrollRecordsBetween");
+    private static final LatencyHistogram GET_LATEST_RECORDS = Metrics.histogram("data.getLatestPayrollRecords");
+    private static final LatencyHistogram GET_RECORDS_FOR_EMPLOYEE =
+        Metrics.histogram("data.getPayrollRecordsForEmployee");
+    private static final LatencyHistogram GET_RECORDS_FOR_DATE = Metrics.histogram("data.getPayrollRecordsForDate");
+    private static final LatencyHistogram GET_RECORDS_FOR_PERIOD =
+        Metrics.histogram("data.getPayrollRecordsForPeriod");
+    private static final LatencyHistogram GET_RECORD_COUNT = Metrics.histogram("data.getPayrollRecordCount");
+
+    private static final Counter EMPLOYEES_READ = Metrics.counter("data.employeesRead");
+    private static final Counter EMPLOYEES_WRITTEN = Metrics.counter("data.employeesWritten");
+    private static final Counter RECORDS_READ = Metrics.counter("data.recordsRead");
+    private static final Counter RECORDS_WRITTEN = Metrics.counter("data.recordsWritten");
+
+    private final PayrollRepository store;
+
+    public MeteredPayrollRepository(PayrollRepository store) {
+        this.store = store;
+    }
+
+    // The store itself when metrics are disabled
+    public static PayrollRepository wrap(PayrollRepository store) {
+        return Metrics.ENABLED ? new MeteredPayrollRepository(store) : store;
+    }
+
+    public PayrollRepository getStore() {
+        return store;
+    }
+
+    @Override
+    public int addEmployee(String name, String role, double baseSalary) {
+        long start = Metrics.startTime();
+        int id = store.addEmployee(name, role, baseSalary);
+        ADD_EMPLOYEE.record(start);
+        EMPLOYEES_WRITTEN.increment();
+        return id;
+    }
+
+    @Override
+    public int[] addEmployees(String[] names, String[] roles, double[] baseSalaries, int count) {
+        long start = Metrics.startTime();
+        int[] ids = store.addEmployees(names, roles, baseSalaries, count);
+        ADD_EMPLOYEES.record(start);
+        EMPLOYEES_WRITTEN.add(ids.length);
+        return ids;
+    }
+
+    @Override
+    public List<Employee> getAllEmployees() {
+        long start = Metrics.startTime();
+        List<Employee> employees = store.getAllEmployees();
+        GET_ALL_EMPLOYEES.record(start);
+        EMPLOYEES_READ.add(employees.size());
+        return employees;
+    }
+
+    @Override
+    public Employee getEmployee(int id) {
+        long start = Metrics.startTime();
+        Employee employee = store.getEmployee(id);
+        GET_EMPLOYEE.record(start);
+        EMPLOYEES_READ.increment();
+        return employee;
+    }
+
+    @Override
+    public List<Employee> getEmployeesByPosition(String position) {
+        long start = Metrics.startTime();
+        List<Employee> employees = store.getEmployeesByPosition(position);
+        GET_EMPLOYEES_BY_POSITION.record(start);
+        EMPLOYEES_READ.add(employees.size());
+        return employees;
+    }
+
+    @Override
+    public void updateEmployeeHours(int employeeId, double hoursWorked, double overtimeHours) {
+        long start = Metrics.startTime();
+        store.updateEmployeeHours(employeeId, hoursWorked, overtimeHours);
+        UPDATE_HOURS.record(start);
+        EMPLOYEES_WRITTEN.increment();
+    }
+
+    @Override
+    public int updateHoursBatch(int[] employeeIds, double[] hoursWorked, double[] overtimeHours, int count) {
+        long start = Metrics.startTime();
+        int updated = store.updateHoursBatch(employeeIds, hoursWorked, overtimeHours, count);
+        UPDATE_HOURS_BATCH.record(start);
+        EMPLOYEES_WRITTEN.add(updated);
+        return updated;
+    }
+
+    @Override
+    public void removeEmployee(int employeeId) {
+        long start = Metrics.startTime();
+        store.removeEmployee(employeeId);
+        REMOVE_EMPLOYEE.record(start);
+    }
+
+    @Override
+    public void savePayrollRecord(PayrollRecord record) {
+        long start = Metrics.startTime();
+        store.savePayrollRecord(record);
+        SAVE_RECORD.record(start);
+        RECORDS_WRITTEN.increment();
+    }
+
+    @Override
+    public int savePayrollRecords(Collection<? extends PayrollRecord> records) {
+        long start = Metrics.startTime();
+        int saved = store.savePayrollRecords(records);
+        SAVE_RECORDS.record(start);
+        RECORDS_WRITTEN.add(saved);
+        return saved;
+    }
+
+    @Override
+    public List<PayrollRecord> commitPayrollRun(PayrollRun run, Collection<? extends PayrollRecord> records) {
+        long start = Metrics.startTime();
+        List<PayrollRecord> replaced = store.commitPayrollRun(run, records);
+        COMMIT_RUN.record(start);
+        RECORDS_WRITTEN.add(records.size());
+        return replaced;
+    }
+
+    @Override
+    public PayrollRun getPayrollRun(YearMonth period) {
+        long start = Metrics.startTime();
+        PayrollRun run = store.getPayrollRun(period);
+        GET_RUN.record(start);
+        return run;
+    }
+
+    @Override
+    public List<PayrollRecord> getAllPayrollRecords() {
+        return read(GET_ALL_RECORDS, Metrics.startTime(), store.getAllPayrollRecords());
+    }
+
+    // Records are read as the table or export asks for them, so only the call itself is timed
+    @Override
+    public PayrollRecordSource getPayrollHistory() {
+        long start = Metrics.startTime();
+        PayrollRecordSource history = store.getPayrollHistory();
+        GET_HISTORY.record(start);
+        return history;
+    }
+
+    @Override
+    public List<PayrollRecord> getPayrollRecordsBetween(LocalDate from, LocalDate to) {
+        return read(GET_RECORDS_BETWEEN, Metrics.startTime(), store.getPayrollRecordsBetween(from, to));
+    }
+
+    @Override
+    public List<PayrollRecord> getLatestPayrollRecords(int count) {
+        return read(GET_LATEST_RECORDS, Metrics.startTime(), store.getLatestPayrollRecords(count));
+    }
+
+    @Override
+    public List<PayrollRecord> getPayrollRecordsForEmployee(int employeeId) {
+        return read(GET_RECORDS_FOR_EMPLOYEE, Metrics.startTime(), store.getPayrollRecordsForEmployee(employeeId));
+    }
+
+    @Override
+    public List<PayrollRecord> getPayrollRecordsForDate(LocalDate payDate) {
+        return read(GET_RECORDS_FOR_DATE, Metrics.startTime(), store.getPayrollRecordsForDate(payDate));
+    }
+
+    @Override
+    public List<PayrollRecord> getPayrollRecordsForPeriod(YearMonth period) {
+        return read(GET_RECORDS_FOR_PERIOD, Metrics.startTime(), store.getPayrollRecordsForPeriod(period));
+    }
+
+    @Override
+    public int getPayrollRecordCount() {
+        long start = Metrics.startTime();
+        int count = store.getPayrollRecordCount();
+        GET_RECORD_COUNT.record(start);
+        return count;
+    }
+
+    // Arguments are evaluated left to right, so start is taken before the store call runs
+    private static List<PayrollRecord> read(LatencyHistogram histogram, long start, List<PayrollRecord> records) {
+        histogram.record(start);
+        RECORDS_READ.add(records.size());
+        return records;
+    }
+
+    @Override
+    public void addEmployeeListener(EmployeeListener listener) {
+        store.addEmployeeListener(listener);
+    }
+
+    @Override
+    public void removeEmployeeListener(EmployeeListener listener) {
+        store.removeEmployeeListener(listener);
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+}
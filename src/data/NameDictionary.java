@@ -0,0 +1,52 @@
+package data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns strings to dense int codes so columns can store an int per row
+ * instead of a String reference. Not thread-safe; callers guard it.
+ */
+class NameDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] names = new String[16];
+    private int size;
+
+    int encode(String name) {
+        Integer code = codes.get(name);
+        if (code != null) {
+            return code;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = name;
+        codes.put(name, size);
+        return size++;
+    }
+
+    String decode(int code) {
+        return names[code];
+    }
+
+    // The dictionary's instance of name, so equal names share one String
+    String share(String name) {
+        return names[encode(name)];
+    }
+
+    // The code of name, or -1 if it was never encoded
+    int find(String name) {
+        Integer code = codes.get(name);
+        return code == null ? -1 : code;
+    }
+
+    // The backing table, indexed by code; entries below size() never change
+    String[] names() {
+        return names;
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,275 @@
+package data;
+
+import model.Money;
+import model.PayrollRecord;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pay stub layout, compiled once and rendered for any number of records.
+ *
+ * Templates are plain text or HTML with {{field}} placeholders, optionally
+ * padded to a width: {{net:12}} right-aligns in 12 characters and
+ * {{employeeName:-30}} left-aligns in 30. Fields:
+ *   employeeId employeeName payDate period
+ *   hours overtime gross tax net
+ *   ytdHours ytdOvertime ytdGross ytdTax ytdNet
+ * Money is written as $1234.56 and hours to two decimals. Year-to-date fields
+ * come from the Totals passed to render(). In HTML templates the employee
+ * name is escaped; everything else is digits and punctuation.
+ *
+ * Compiling splits the template into literal text and field codes, so
+ * rendering is a loop of appends with no parsing, lookups or formatting
+ * strings. A compiled template is immutable and can be shared by threads.
+ */
+public final class PayStubTemplate {
+    public enum Format {
+        TEXT("txt"), HTML("html");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String[] FIELD_NAMES = {
+        "employeeId", "employeeName", "payDate", "period",
+        "hours", "overtime", "gross", "tax", "net",
+        "ytdHours", "ytdOvertime", "ytdGross", "ytdTax", "ytdNet"
+    };
+    private static final int EMPLOYEE_ID = 0;
+    private static final int EMPLOYEE_NAME = 1;
+    private static final int PAY_DATE = 2;
+    private static final int PERIOD = 3;
+    private static final int HOURS = 4;
+    private static final int OVERTIME = 5;
+    private static final int GROSS = 6;
+    private static final int TAX = 7;
+    private static final int NET = 8;
+    private static final int YTD_HOURS = 9;
+    private static final int YTD_OVERTIME = 10;
+    private static final int YTD_GROSS = 11;
+    private static final int YTD_TAX = 12;
+    private static final int YTD_NET = 13;
+
+    private static final String SPACES = "                                ";
+
+    private static final String DEFAULT_TEXT =
+        "PAY STUB {{period}}\n"
+        + "Employee: {{employeeName}} (ID {{employeeId}})\n"
+        + "Pay date: {{payDate}}\n"
+        + "\n"
+        + "                    This period    Year to date\n"
+        + "Hours            {{hours:14}}  {{ytdHours:14}}\n"
+        + "Overtime         {{overtime:14}}  {{ytdOvertime:14}}\n"
+        + "Gross pay        {{gross:14}}  {{ytdGross:14}}\n"
+        + "Tax              {{tax:14}}  {{ytdTax:14}}\n"
+        + "Net pay          {{net:14}}  {{ytdNet:14}}\n";
+
+    private static final String DEFAULT_HTML =
+        "<!DOCTYPE html>\n"
+        + "<html><head><meta charset=\"utf-8\"><title>Pay stub {{period}} - {{employeeName}}</title></head>\n"
+        + "<body>\n"
+        + "<h1>Pay stub {{period}}</h1>\n"
+        + "<p>{{employeeName}} (ID {{employeeId}})<br>Pay date: {{payDate}}</p>\n"
+        + "<table>\n"
+        + "<tr><th></th><th>This period</th><th>Year to date</th></tr>\n"
+        + "<tr><td>Hours</td><td>{{hours}}</td><td>{{ytdHours}}</td></tr>\n"
+        + "<tr><td>Overtime</td><td>{{overtime}}</td><td>{{ytdOvertime}}</td></tr>\n"
+        + "<tr><td>Gross pay</td><td>{{gross}}</td><td>{{ytdGross}}</td></tr>\n"
+        + "<tr><td>Tax</td><td>{{tax}}</td><td>{{ytdTax}}</td></tr>\n"
+        + "<tr><td>Net pay</td><td>{{net}}</td><td>{{ytdNet}}</td></tr>\n"
+        + "</table>\n"
+        + "</body></html>\n";
+
+    private final Format format;
+    // literals[i] is followed by field fields[i] padded to widths[i]; the last literal ends the stub
+    private final String[] literals;
+    private final int[] fields;
+    private final int[] widths;
+    private final int sizeHint;
+
+    private PayStubTemplate(Format format, String[] literals, int[] fields, int[] widths) {
+        this.format = format;
+        this.literals = literals;
+        this.fields = fields;
+        this.widths = widths;
+        int size = fields.length * 12;
+        for (String literal : literals) {
+            size += literal.length();
+        }
+        this.sizeHint = size;
+    }
+
+    public static PayStubTemplate defaultTemplate(Format format) {
+        return compile(format == Format.HTML ? DEFAULT_HTML : DEFAULT_TEXT, format);
+    }
+
+    // Reads a UTF-8 template; .html and .htm files are HTML, anything else text
+    public static PayStubTemplate load(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        Format format = name.endsWith(".html") || name.endsWith(".htm") ? Format.HTML : Format.TEXT;
+        return load(file, format);
+    }
+
+    public static PayStubTemplate load(Path file, Format format) throws IOException {
+        try {
+            return compile(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), format);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Throws IllegalArgumentException for an unknown field or a malformed placeholder
+    public static PayStubTemplate compile(String template, Format format) {
+        List<String> literals = new ArrayList<>();
+        List<int[]> placeholders = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = template.indexOf("{{", position);
+            if (open < 0) {
+                literals.add(template.substring(position));
+                break;
+            }
+            int close = template.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+            }
+            literals.add(template.substring(position, open));
+            placeholders.add(parsePlaceholder(template.substring(open + 2, close).trim(), open));
+            position = close + 2;
+        }
+
+        int[] fields = new int[placeholders.size()];
+        int[] widths = new int[placeholders.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = placeholders.get(i)[0];
+            widths[i] = placeholders.get(i)[1];
+        }
+        return new PayStubTemplate(format, literals.toArray(new String[0]), fields, widths);
+    }
+
+    // {field} or {field}:{width}; returns {field code, width}
+    private static int[] parsePlaceholder(String placeholder, int offset) {
+        String name = placeholder;
+        int width = 0;
+        int colon = placeholder.indexOf(':');
+        if (colon >= 0) {
+            name = placeholder.substring(0, colon).trim();
+            try {
+                width = Integer.parseInt(placeholder.substring(colon + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid width in {{" + placeholder + "}} at offset " + offset);
+            }
+        }
+        for (int field = 0; field < FIELD_NAMES.length; field++) {
+            if (FIELD_NAMES[field].equals(name)) {
+                return new int[] {field, width};
+            }
+        }
+        throw new IllegalArgumentException("Unknown field {{" + name + "}} at offset " + offset);
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    // Roughly the length of a rendered stub, for sizing buffers
+    public int getSizeHint() {
+        return sizeHint;
+    }
+
+    // Appends the stub for record to out; yearToDate holds the employee's totals for the pay date's year
+    public void render(PayrollRecord record, PayrollRollups.Totals yearToDate, StringBuilder out) {
+        for (int i = 0; i < fields.length; i++) {
+            out.append(literals[i]);
+            int start = out.length();
+            appendField(fields[i], record, yearToDate, out);
+            int width = widths[i];
+            // Positive widths pad on the left, negative ones on the right
+            for (int padding = Math.abs(width) - (out.length() - start); padding > 0; padding -= SPACES.length()) {
+                int count = Math.min(padding, SPACES.length());
+                if (width > 0) {
+                    out.insert(start, SPACES, 0, count);
+                } else {
+                    out.append(SPACES, 0, count);
+                }
+            }
+        }
+        out.append(literals[fields.length]);
+    }
+
+    private void appendField(int field, PayrollRecord record, PayrollRollups.Totals yearToDate,
+                             StringBuilder out) {
+        switch (field) {
+            case EMPLOYEE_ID: out.append(record.getEmployeeId()); break;
+            case EMPLOYEE_NAME: appendText(record.getEmployeeName(), out); break;
+            case PAY_DATE: appendDate(record.getPayDate(), out, true); break;
+            case PERIOD: appendDate(record.getPayDate(), out, false); break;
+            case HOURS: appendHundredths(Math.round(record.getHoursWorked() * 100), out); break;
+            case OVERTIME: appendHundredths(Math.round(record.getOvertimeHours() * 100), out); break;
+            case GROSS: Money.appendTo(out, record.getGrossPayCents()); break;
+            case TAX: Money.appendTo(out, record.getTaxCents()); break;
+            case NET: Money.appendTo(out, record.getNetPayCents()); break;
+            case YTD_HOURS: appendHundredths(Math.round(yearToDate.getHoursWorked() * 100), out); break;
+            case YTD_OVERTIME: appendHundredths(Math.round(yearToDate.getOvertimeHours() * 100), out); break;
+            case YTD_GROSS: Money.appendTo(out, yearToDate.getGrossPayCents()); break;
+            case YTD_TAX: Money.appendTo(out, yearToDate.getTaxCents()); break;
+            case YTD_NET: Money.appendTo(out, yearToDate.getNetPayCents()); break;
+            default: throw new IllegalStateException("Unknown field " + field);
+        }
+    }
+
+    private void appendText(String text, StringBuilder out) {
+        if (format != Format.HTML) {
+            out.append(text);
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&': out.append("&amp;"); break;
+                case '<': out.append("&lt;"); break;
+                case '>': out.append("&gt;"); break;
+                case '"': out.append("&quot;"); break;
+                case '\'': out.append("&#39;"); break;
+                default: out.append(c);
+            }
+        }
+    }
+
+    // yyyy-MM-dd, or yyyy-MM for the period
+    private static void appendDate(LocalDate date, StringBuilder out, boolean withDay) {
+        out.append(date.getYear()).append('-');
+        appendTwoDigits(date.getMonthValue(), out);
+        if (withDay) {
+            out.append('-');
+            appendTwoDigits(date.getDayOfMonth(), out);
+        }
+    }
+
+    private static void appendTwoDigits(int value, StringBuilder out) {
+        out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    // 12345 as 123.45
+    private static void appendHundredths(long hundredths, StringBuilder out) {
+        if (hundredths < 0) {
+            out.append('-');
+            hundredths = -hundredths;
+        }
+        out.append(hundredths / 100).append('.');
+        appendTwoDigits((int) (hundredths % 100), out);
+    }
+}
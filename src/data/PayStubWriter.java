@@ -0,0 +1,289 @@
+package data;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.PayrollRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders a pay stub per payroll record with a PayStubTemplate and writes
+ * them as files in a directory or as entries of one zip stream.
+ *
+ * Records are rendered in batches, in parallel on a ForkJoinPool. Every worker
+ * thread keeps one StringBuilder and one set of encode buffers and reuses them
+ * for each stub it renders, so rendering allocates little beyond the output
+ * bytes. For a directory the workers write their stubs themselves. For a zip
+ * they render ahead into byte arrays, at most a few batches per thread, and
+ * the calling thread writes the entries in record order. A zip file is
+ * written beside the target and renamed over it once complete, like
+ * PayrollExporter does, so a failed write leaves the earlier zip in place.
+ *
+ * Stubs are named {employee ID}-{pay date}.{extension}; further records for
+ * the same employee and pay date get -2, -3 and so on, in record order.
+ * Year-to-date figures are the rollups' totals for the employee from January
+ * through the record's pay period, so render a period's stubs once it has
+ * been saved; stubs for earlier periods can be rendered again at any time.
+ */
+public class PayStubWriter {
+    private static final int BATCH_SIZE = 256;
+
+    private static final LatencyHistogram WRITES = Metrics.histogram("stubs.latency");
+    private static final Counter STUBS_WRITTEN = Metrics.counter("stubs.written");
+
+    private final PayStubTemplate template;
+    private final PayrollRollups rollups;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Renderer> renderers = ThreadLocal.withInitial(Renderer::new);
+
+    public PayStubWriter(PayStubTemplate template, PayrollRollups rollups) {
+        this(template, rollups, ForkJoinPool.commonPool());
+    }
+
+    public PayStubWriter(PayStubTemplate template, PayrollRollups rollups, ForkJoinPool pool) {
+        this.template = template;
+        this.rollups = rollups;
+        this.pool = pool;
+    }
+
+    // Creates the directory if needed; returns the number of stubs written
+    public int writeDirectory(List<PayrollRecord> records, Path directory) throws IOException {
+        long start = Metrics.startTime();
+        Files.createDirectories(directory);
+        String[] names = fileNames(records);
+        List<Future<Void>> batches = new ArrayList<>();
+        try {
+            for (int from = 0; from < records.size(); from += BATCH_SIZE) {
+                int to = Math.min(from + BATCH_SIZE, records.size());
+                int first = from;
+                batches.add(pool.submit(() -> {
+                    Renderer renderer = renderers.get();
+                    for (int i = first; i < to; i++) {
+                        ByteBuffer stub = renderer.render(records.get(i));
+                        try (FileChannel out = FileChannel.open(directory.resolve(names[i]),
+                                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                StandardOpenOption.TRUNCATE_EXISTING)) {
+                            while (stub.hasRemaining()) {
+                                out.write(stub);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> batch : batches) {
+                await(batch);
+            }
+        } finally {
+            cancel(batches);
+        }
+        WRITES.record(start);
+        STUBS_WRITTEN.add(records.size());
+        return records.size();
+    }
+
+    // Replaces file with a zip of the stubs; on failure an existing file is left as it was
+    public int writeZip(List<PayrollRecord> records, Path file) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        int count;
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16)) {
+                count = writeZip(records, out);
+                out.flush();
+                // On disk before the rename, so a crash cannot leave the target empty
+                channel.force(true);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        return count;
+    }
+
+    // Writes a complete zip to out and leaves it open; returns the number of stubs written
+    public int writeZip(List<PayrollRecord> records, OutputStream out) throws IOException {
+        long start = Metrics.startTime();
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        // Compressing is the one step that is not parallel, so favour speed; stubs still shrink several times
+        zip.setLevel(Deflater.BEST_SPEED);
+        String[] names = fileNames(records);
+        ArrayDeque<Future<RenderedBatch>> ahead = new ArrayDeque<>();
+        int maxAhead = pool.getParallelism() * 2;
+        int next = 0;
+        try {
+            while (next < records.size() || !ahead.isEmpty()) {
+                while (ahead.size() < maxAhead && next < records.size()) {
+                    int from = next;
+                    int to = Math.min(from + BATCH_SIZE, records.size());
+                    ahead.add(pool.submit(() -> renderers.get().renderBatch(records, from, to)));
+                    next = to;
+                }
+                RenderedBatch batch = await(ahead.poll());
+                for (int i = 0; i < batch.starts.length - 1; i++) {
+                    zip.putNextEntry(new ZipEntry(names[batch.first + i]));
+                    zip.write(batch.bytes, batch.starts[i], batch.starts[i + 1] - batch.starts[i]);
+                    zip.closeEntry();
+                }
+            }
+            zip.finish();
+        } finally {
+            cancel(ahead);
+        }
+        WRITES.record(start);
+        STUBS_WRITTEN.add(records.size());
+        return records.size();
+    }
+
+    // Renders one stub, e.g. to show in a dialog
+    public String render(PayrollRecord record) {
+        StringBuilder out = new StringBuilder(template.getSizeHint());
+        template.render(record, yearToDate(record), out);
+        return out.toString();
+    }
+
+    private PayrollRollups.Totals yearToDate(PayrollRecord record) {
+        return rollups.getYearToDate(record.getEmployeeId(), record.getPayPeriod());
+    }
+
+    private String[] fileNames(List<PayrollRecord> records) {
+        String[] names = new String[records.size()];
+        Map<String, Integer> seen = new HashMap<>(records.size() * 2);
+        String extension = "." + template.getFormat().getExtension();
+        for (int i = 0; i < names.length; i++) {
+            PayrollRecord record = records.get(i);
+            String name = record.getEmployeeId() + "-" + record.getPayDate();
+            int count = seen.merge(name, 1, Integer::sum);
+            names[i] = (count == 1 ? name : name + "-" + count) + extension;
+        }
+        return names;
+    }
+
+    private static <T> T await(Future<T> batch) throws IOException {
+        try {
+            return batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing pay stubs", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Rendering pay stubs failed", cause);
+        }
+    }
+
+    // Stops batches still queued after a failure; a no-op for those already done
+    private static void cancel(Iterable<? extends Future<?>> batches) {
+        for (Future<?> batch : batches) {
+            batch.cancel(false);
+        }
+    }
+
+    private static final class RenderedBatch {
+        // Index of the batch's first record
+        final int first;
+        final byte[] bytes;
+        // Stub i is bytes[starts[i]] up to starts[i + 1]
+        final int[] starts;
+
+        RenderedBatch(int first, byte[] bytes, int[] starts) {
+            this.first = first;
+            this.bytes = bytes;
+            this.starts = starts;
+        }
+    }
+
+    // Per-thread buffers, reused for every stub the thread renders
+    private final class Renderer {
+        private final StringBuilder text = new StringBuilder(template.getSizeHint() * 2);
+        // Replaces a lone surrogate with '?' like PayrollExporter, instead of stopping part way through the stub
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private char[] chars = new char[template.getSizeHint() * 2];
+        private CharBuffer charView = CharBuffer.wrap(chars);
+        private ByteBuffer encoded = ByteBuffer.allocate(template.getSizeHint() * 2);
+
+        // The stub as UTF-8, valid until the next call on this thread
+        ByteBuffer render(PayrollRecord record) {
+            text.setLength(0);
+            template.render(record, yearToDate(record), text);
+            int length = text.length();
+            if (length > chars.length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+                charView = CharBuffer.wrap(chars);
+            }
+            text.getChars(0, length, chars, 0);
+            while (true) {
+                charView.clear().limit(length);
+                encoded.clear();
+                encoder.reset();
+                CoderResult result = encoder.encode(charView, encoded, true);
+                if (!result.isOverflow()) {
+                    result = encoder.flush(encoded);
+                }
+                if (!result.isOverflow()) {
+                    break;
+                }
+                encoded = ByteBuffer.allocate(encoded.capacity() * 2);
+            }
+            encoded.flip();
+            return encoded;
+        }
+
+        RenderedBatch renderBatch(List<PayrollRecord> records, int from, int to) {
+            int[] starts = new int[to - from + 1];
+            byte[] bytes = new byte[(to - from) * template.getSizeHint()];
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                ByteBuffer stub = render(records.get(i));
+                int length = stub.remaining();
+                if (size + length > bytes.length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(size + length, bytes.length * 2));
+                }
+                stub.get(bytes, size, length);
+                size += length;
+                starts[i - from + 1] = size;
+            }
+            return new RenderedBatch(from, bytes, starts);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package data;
+
+import model.Money;
+import model.PayDates;
+import model.PayrollRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only payroll history archive in a fixed-width binary file.
+ *
+ * Layout (little-endian):
+ *   header     magic, version, row count, dictionary offset (24 bytes)
+ *   rows       one 52-byte row per record: employee ID, name code, pay date as
+ *              epoch day (ints), hours, overtime (doubles), then gross, tax,
+ *              net as exact cents (longs)
+ *   dictionary name count, then each name as length + UTF-8 bytes
+ *
+ * The rows are memory-mapped and read in place: the column getters decode a
+ * single field straight from the mapping, and only get() builds a
+ * PayrollRecord. Opening a file costs the dictionary, not the row count, and
+ * column totals are exact sums of cents. Instances are immutable and safe to
+ * share between threads.
+ */
+public final class PayrollArchive implements PayrollRecordSource {
+    private static final int MAGIC = 0x50415941; // "PAYA"
+    // Version 1 held money as doubles
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 24;
+    private static final int ROW_SIZE = 52;
+    // Rows per mapped segment; a single mapping is limited to 2 GB
+    private static final int ROWS_PER_SEGMENT = (1 << 30) / ROW_SIZE;
+
+    private static final int EMPLOYEE_ID = 0;
+    private static final int NAME = 4;
+    private static final int PAY_DAY = 8;
+    private static final int HOURS = 12;
+    private static final int OVERTIME = 20;
+    private static final int GROSS = 28;
+    private static final int TAX = 36;
+    private static final int NET = 44;
+
+    private final ByteBuffer[] segments;
+    private final String[] names;
+    private final int rowCount;
+
+    private PayrollArchive(ByteBuffer[] segments, String[] names, int rowCount) {
+        this.segments = segments;
+        this.names = names;
+        this.rowCount = rowCount;
+    }
+
+    public static PayrollArchive open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE + 4) {
+                throw new IOException("Not a payroll archive: " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE)
+                                       .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a payroll archive: " + file);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported payroll archive version " + header.getInt(4) + ": " + file);
+            }
+            long rows = header.getLong(8);
+            long dictionaryOffset = header.getLong(16);
+            if (rows > Integer.MAX_VALUE || dictionaryOffset != HEADER_SIZE + rows * ROW_SIZE) {
+                throw new IOException("Corrupt payroll archive header: " + file);
+            }
+
+            int segmentCount = (int) ((rows + ROWS_PER_SEGMENT - 1) / ROWS_PER_SEGMENT);
+            ByteBuffer[] segments = new ByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long firstRow = (long) i * ROWS_PER_SEGMENT;
+                long segmentRows = Math.min(ROWS_PER_SEGMENT, rows - firstRow);
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE + firstRow * ROW_SIZE, segmentRows * ROW_SIZE);
+                segments[i] = segment.order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            ByteBuffer dictionary = channel.map(FileChannel.MapMode.READ_ONLY, dictionaryOffset,
+                                                channel.size() - dictionaryOffset).order(ByteOrder.LITTLE_ENDIAN);
+            String[] names = new String[dictionary.getInt()];
+            for (int i = 0; i < names.length; i++) {
+                byte[] bytes = new byte[dictionary.getInt()];
+                dictionary.get(bytes);
+                names[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return new PayrollArchive(segments, names, (int) rows);
+        }
+    }
+
+    // Writes records to file in iteration order and returns the number of rows written
+    public static int write(Path file, Iterable<PayrollRecord> records) throws IOException {
+        NameDictionary dictionary = new NameDictionary();
+        long rows = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(ROW_SIZE * 4096).order(ByteOrder.LITTLE_ENDIAN);
+            channel.position(HEADER_SIZE);
+            for (PayrollRecord record : records) {
+                if (buffer.remaining() < ROW_SIZE) {
+                    drain(channel, buffer);
+                }
+                buffer.putInt(record.getEmployeeId())
+                      .putInt(dictionary.encode(record.getEmployeeName()))
+                      .putInt((int) record.getPayDate().toEpochDay())
+                      .putDouble(record.getHoursWorked())
+                      .putDouble(record.getOvertimeHours())
+                      .putLong(record.getGrossPayCents())
+                      .putLong(record.getTaxCents())
+                      .putLong(record.getNetPayCents());
+                rows++;
+            }
+            drain(channel, buffer);
+
+            long dictionaryOffset = channel.position();
+            buffer.putInt(dictionary.size());
+            for (int i = 0; i < dictionary.size(); i++) {
+                byte[] bytes = dictionary.decode(i).getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < 4 + bytes.length) {
+                    drain(channel, buffer);
+                }
+                if (buffer.remaining() < 4 + bytes.length) {
+                    buffer = ByteBuffer.allocate(4 + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+                }
+                buffer.putInt(bytes.length).put(bytes);
+            }
+            drain(channel, buffer);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(rows).putLong(dictionaryOffset).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        if (rows > Integer.MAX_VALUE) {
+            throw new IOException("Too many records for one archive: " + rows);
+        }
+        return (int) rows;
+    }
+
+    // Writes a source, e.g. a store's history view, without copying it into a list first
+    public static int write(Path file, PayrollRecordSource records) throws IOException {
+        return write(file, () -> IntStream.range(0, records.size()).mapToObj(records::get).iterator());
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    @Override
+    public PayrollRecord get(int row) {
+        return PayrollRecord.fromCents(getEmployeeId(row), getEmployeeName(row), getHoursWorked(row),
+                                       getOvertimeHours(row), getGrossPayCents(row), getTaxCents(row),
+                                       getNetPayCents(row), getPayDate(row));
+    }
+
+    public int getEmployeeId(int row) { return segment(row).getInt(offset(row) + EMPLOYEE_ID); }
+    public String getEmployeeName(int row) { return names[segment(row).getInt(offset(row) + NAME)]; }
+    public long getPayEpochDay(int row) { return segment(row).getInt(offset(row) + PAY_DAY); }
+    public LocalDate getPayDate(int row) { return PayDates.ofEpochDay(getPayEpochDay(row)); }
+    public double getHoursWorked(int row) { return segment(row).getDouble(offset(row) + HOURS); }
+    public double getOvertimeHours(int row) { return segment(row).getDouble(offset(row) + OVERTIME); }
+    public long getGrossPayCents(int row) { return segment(row).getLong(offset(row) + GROSS); }
+    public long getTaxCents(int row) { return segment(row).getLong(offset(row) + TAX); }
+    public long getNetPayCents(int row) { return segment(row).getLong(offset(row) + NET); }
+    public double getGrossPay(int row) { return Money.toDouble(getGrossPayCents(row)); }
+    public double getTax(int row) { return Money.toDouble(getTaxCents(row)); }
+    public double getNetPay(int row) { return Money.toDouble(getNetPayCents(row)); }
+
+    // Column totals sum cents without creating any objects, so they are exact for any number of rows
+    public long getTotalGrossPayCents() {
+        return sumColumn(GROSS);
+    }
+
+    public long getTotalTaxCents() {
+        return sumColumn(TAX);
+    }
+
+    public long getTotalNetPayCents() {
+        return sumColumn(NET);
+    }
+
+    public double getTotalGrossPay() { return Money.toDouble(getTotalGrossPayCents()); }
+    public double getTotalNetPay() { return Money.toDouble(getTotalNetPayCents()); }
+
+    private long sumColumn(int column) {
+        long total = 0;
+        for (int row = 0; row < rowCount; row++) {
+            total += segment(row).getLong(offset(row) + column);
+        }
+        return total;
+    }
+
+    private ByteBuffer segment(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + rowCount);
+        }
+        return segments[row / ROWS_PER_SEGMENT];
+    }
+
+    private static int offset(int row) {
+        return (row % ROWS_PER_SEGMENT) * ROW_SIZE;
+    }
+}
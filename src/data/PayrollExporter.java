@@ -0,0 +1,354 @@
+package data;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.PayrollRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Iterator;
+
+/**
+ * Streams payroll records to a file as CSV, JSON Lines or a fixed-width bank
+ * transfer file.
+ *
+ * Records are formatted byte by byte straight into one direct ByteBuffer that
+ * is written to a FileChannel whenever it fills, so memory use is constant and
+ * no String is built per record or field. Money is written from the record's
+ * cents and is exact; hours are written to two decimals.
+ *
+ * Bank file layout (ASCII, one line per record, LF terminated):
+ *   D  employee ID (10, zero padded)  name (30, space padded, non-ASCII as ?)
+ *      net pay in cents (12, zero padded)  pay date (yyyyMMdd)
+ *   T  record count (10, zero padded)  total net pay in cents (15, zero padded)
+ * A record with negative net pay cannot be paid by transfer and fails the
+ * bank export.
+ *
+ * The export is written to FILE.tmp next to the target and renamed over it
+ * once complete, so a failed export leaves any earlier file untouched rather
+ * than a partial one.
+ *
+ * An exporter reuses its buffer between exports and is not thread-safe.
+ */
+public class PayrollExporter {
+    public enum Format {
+        CSV("csv"), JSON_LINES("jsonl"), BANK("txt");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final byte[] CSV_HEADER =
+        ascii("Employee ID,Name,Hours,Overtime,Gross Pay,Tax,Net Pay,Date\n");
+    private static final int BANK_NAME_WIDTH = 30;
+    // Largest fixed part of any line; names are checked separately
+    private static final int MAX_FIXED_LINE = 256;
+
+    private static final LatencyHistogram EXPORTS = Metrics.histogram("export.latency");
+    private static final Counter RECORDS_EXPORTED = Metrics.counter("export.records");
+
+    private final Format format;
+    private final ByteBuffer buffer;
+    private final byte[] digits = new byte[20];
+    private FileChannel channel;
+
+    public PayrollExporter(Format format) {
+        this(format, 256 * 1024);
+    }
+
+    public PayrollExporter(Format format, int bufferSize) {
+        if (bufferSize < MAX_FIXED_LINE) {
+            throw new IllegalArgumentException("Buffer must hold at least " + MAX_FIXED_LINE + " bytes");
+        }
+        this.format = format;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public int export(PayrollRecordSource source, Path file) throws IOException {
+        return export(() -> new Iterator<PayrollRecord>() {
+            private int row;
+
+            public boolean hasNext() {
+                return row < source.size();
+            }
+
+            public PayrollRecord next() {
+                return source.get(row++);
+            }
+        }, file);
+    }
+
+    // Writes the records in iteration order, replacing file; returns the number written
+    public int export(Iterable<PayrollRecord> records, Path file) throws IOException {
+        long start = Metrics.startTime();
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        int count;
+        try {
+            count = write(records, tempFile);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        EXPORTS.record(start);
+        RECORDS_EXPORTED.add(count);
+        return count;
+    }
+
+    private int write(Iterable<PayrollRecord> records, Path file) throws IOException {
+        int count = 0;
+        long totalNetCents = 0;
+        buffer.clear();
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel = out;
+            if (format == Format.CSV) {
+                buffer.put(CSV_HEADER);
+            }
+            for (PayrollRecord record : records) {
+                ensure(MAX_FIXED_LINE);
+                switch (format) {
+                    case CSV: writeCsv(record); break;
+                    case JSON_LINES: writeJson(record); break;
+                    case BANK: writeBank(record); break;
+                }
+                totalNetCents += record.getNetPayCents();
+                count++;
+            }
+            if (format == Format.BANK) {
+                ensure(MAX_FIXED_LINE);
+                buffer.put((byte) 'T');
+                putPadded(count, 10);
+                putPadded(totalNetCents, 15);
+                buffer.put((byte) '\n');
+            }
+            drain();
+            // On disk before the rename, so a crash cannot leave the target empty
+            out.force(true);
+        } finally {
+            channel = null;
+        }
+        return count;
+    }
+
+    private void writeCsv(PayrollRecord record) throws IOException {
+        putLong(record.getEmployeeId());
+        buffer.put((byte) ',');
+        putCsvText(record.getEmployeeName());
+        ensure(MAX_FIXED_LINE);
+        buffer.put((byte) ',');
+        putCents(toHundredths(record.getHoursWorked()));
+        buffer.put((byte) ',');
+        putCents(toHundredths(record.getOvertimeHours()));
+        buffer.put((byte) ',');
+        putCents(record.getGrossPayCents());
+        buffer.put((byte) ',');
+        putCents(record.getTaxCents());
+        buffer.put((byte) ',');
+        putCents(record.getNetPayCents());
+        buffer.put((byte) ',');
+        putDate(record.getPayDate(), true);
+        buffer.put((byte) '\n');
+    }
+
+    private void writeJson(PayrollRecord record) throws IOException {
+        putAscii("{\"employeeId\":");
+        putLong(record.getEmployeeId());
+        putAscii(",\"employeeName\":");
+        putJsonText(record.getEmployeeName());
+        ensure(MAX_FIXED_LINE);
+        putAscii(",\"hoursWorked\":");
+        putCents(toHundredths(record.getHoursWorked()));
+        putAscii(",\"overtimeHours\":");
+        putCents(toHundredths(record.getOvertimeHours()));
+        putAscii(",\"grossPay\":");
+        putCents(record.getGrossPayCents());
+        putAscii(",\"tax\":");
+        putCents(record.getTaxCents());
+        putAscii(",\"netPay\":");
+        putCents(record.getNetPayCents());
+        putAscii(",\"payDate\":\"");
+        putDate(record.getPayDate(), true);
+        putAscii("\"}\n");
+    }
+
+    private void writeBank(PayrollRecord record) {
+        if (record.getNetPayCents() < 0) {
+            throw new IllegalArgumentException("Negative net pay for employee " + record.getEmployeeId()
+                                               + " cannot be paid by bank transfer");
+        }
+        buffer.put((byte) 'D');
+        putPadded(record.getEmployeeId(), 10);
+        String name = record.getEmployeeName();
+        for (int i = 0; i < BANK_NAME_WIDTH; i++) {
+            char c = i < name.length() ? name.charAt(i) : ' ';
+            buffer.put(c >= 0x20 && c < 0x7F ? (byte) c : (byte) '?');
+        }
+        putPadded(record.getNetPayCents(), 12);
+        putDate(record.getPayDate(), false);
+        buffer.put((byte) '\n');
+    }
+
+    // Quotes the field only if it contains a separator, quote or line break
+    private void putCsvText(String text) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            putUtf8(text, false);
+            return;
+        }
+        buffer.put((byte) '"');
+        putUtf8(text, false);
+        ensure(1);
+        buffer.put((byte) '"');
+    }
+
+    private void putJsonText(String text) throws IOException {
+        buffer.put((byte) '"');
+        putUtf8(text, true);
+        ensure(1);
+        buffer.put((byte) '"');
+    }
+
+    // Encodes text as UTF-8, escaping for CSV (doubled quotes) or JSON
+    private void putUtf8(String text, boolean json) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            ensure(12);
+            char c = text.charAt(i);
+            if (c == '"') {
+                buffer.put(json ? (byte) '\\' : (byte) '"').put((byte) '"');
+            } else if (json && c == '\\') {
+                buffer.put((byte) '\\').put((byte) '\\');
+            } else if (json && c < 0x20) {
+                buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                      .put(hex(c >> 4)).put(hex(c & 0xF));
+            } else if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                       && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                      .put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F))
+                      .put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private static byte hex(int nibble) {
+        return (byte) (nibble < 10 ? '0' + nibble : 'a' + nibble - 10);
+    }
+
+    private void putAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    private void putLong(long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            if (value == Long.MIN_VALUE) {
+                putAscii("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, start, digits.length - start);
+    }
+
+    // Writes hundredths as a plain decimal, e.g. 123456 as 1234.56
+    private void putCents(long cents) {
+        if (cents < 0) {
+            buffer.put((byte) '-');
+            cents = -cents;
+        }
+        putLong(cents / 100);
+        long fraction = cents % 100;
+        buffer.put((byte) '.').put((byte) ('0' + fraction / 10)).put((byte) ('0' + fraction % 10));
+    }
+
+    private void putPadded(long value, int width) {
+        for (int i = width - 1; i >= 0; i--) {
+            digits[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        if (value != 0) {
+            throw new IllegalArgumentException("Value does not fit in " + width + " digits");
+        }
+        buffer.put(digits, 0, width);
+    }
+
+    private void putDate(LocalDate date, boolean dashes) {
+        putPadded(date.getYear(), 4);
+        if (dashes) {
+            buffer.put((byte) '-');
+        }
+        putPadded(date.getMonthValue(), 2);
+        if (dashes) {
+            buffer.put((byte) '-');
+        }
+        putPadded(date.getDayOfMonth(), 2);
+    }
+
+    private static long toHundredths(double value) {
+        return Math.round(value * 100.0);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] ascii(String text) {
+        byte[] bytes = new byte[text.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) text.charAt(i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,88 @@
+package data;
+
+import model.PayrollRecord;
+
+import java.util.Arrays;
+
+/**
+ * Point-in-time view of the payroll history in getAllPayrollRecords() order.
+ *
+ * Creating a view only captures each pay date's log and its current size, so
+ * it costs one entry per pay date, not per record. Records saved afterwards
+ * are not visible through the view; take a new one to see them.
+ */
+public final class PayrollHistoryView implements PayrollRecordSource {
+    private final PayrollRecordLog[] logs;
+    // starts[i] is the first row of logs[i]; starts[logs.length] is the total size
+    private final int[] starts;
+
+    PayrollHistoryView(PayrollRecordLog[] logs) {
+        this.logs = logs;
+        this.starts = new int[logs.length + 1];
+        for (int i = 0; i < logs.length; i++) {
+            starts[i + 1] = starts[i] + logs[i].size();
+        }
+    }
+
+    @Override
+    public int size() {
+        return starts[logs.length];
+    }
+
+    @Override
+    public PayrollRecord get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        int segment = Arrays.binarySearch(starts, 0, logs.length, index);
+        if (segment < 0) {
+            segment = -segment - 2;
+        } else {
+            // Skip empty segments that start at the same row
+            while (starts[segment + 1] == index) {
+                segment++;
+            }
+        }
+        return logs[segment].get(index - starts[segment]);
+    }
+
+    /**
+     * Returns {firstRow, lastRow} (inclusive) of the rows this view has in
+     * addition to an older view, when the only difference is records added to
+     * the most recent pay date (the usual case after generating payroll), or
+     * null when the views differ in any other way.
+     */
+    public int[] rowsInsertedSince(PayrollHistoryView older) {
+        if (older == null || size() <= older.size()) {
+            return null;
+        }
+        int offset;
+        if (logs.length == older.logs.length) {
+            offset = 0;
+        } else if (logs.length == older.logs.length + 1) {
+            offset = 1;
+        } else {
+            return null;
+        }
+        for (int i = 1; i < older.logs.length; i++) {
+            if (logs[i + offset] != older.logs[i] || segmentSize(i + offset) != older.segmentSize(i)) {
+                return null;
+            }
+        }
+        if (offset == 1) {
+            if (older.logs.length > 0
+                    && (logs[1] != older.logs[0] || segmentSize(1) != older.segmentSize(0))) {
+                return null;
+            }
+            return new int[] {0, segmentSize(0) - 1};
+        }
+        if (logs[0] != older.logs[0]) {
+            return null;
+        }
+        return new int[] {older.segmentSize(0), segmentSize(0) - 1};
+    }
+
+    private int segmentSize(int segment) {
+        return starts[segment + 1] - starts[segment];
+    }
+}
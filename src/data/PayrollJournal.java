@@ -0,0 +1,574 @@
+package data;
+
+import model.PayDates;
+import model.PayPeriod;
+import model.PayrollRecord;
+import model.PayrollRun;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of data mutations, plus snapshots.
+ *
+ * Entries are framed as [length][type + payload][CRC32]. append() only copies
+ * the entry into an in-memory batch; awaitDurable() writes and fsyncs it. The
+ * first waiting thread becomes the flusher and commits every entry appended so
+ * far with a single force(), so concurrent writers share one fsync (group
+ * commit).
+ *
+ * A snapshot is the same entry format written to a separate file. Snapshot and
+ * journal both carry a generation number: writing a snapshot bumps the
+ * generation and starts an empty journal, and on recovery a journal older than
+ * the snapshot is ignored, so a crash between the two steps is harmless.
+ *
+ * A pay-period run commit is written as UPSERT_RECORDS entries followed by a
+ * PAYROLL_RUN entry with the run's new checkpoint. A torn tail can keep some
+ * of the records and lose the checkpoint; the resumed run then recalculates
+ * those records and, being an upsert, replaces them rather than adding more.
+ */
+class PayrollJournal implements Closeable {
+    static final byte ADD_EMPLOYEE = 1;
+    static final byte UPDATE_HOURS = 2;
+    static final byte REMOVE_EMPLOYEE = 3;
+    static final byte SAVE_RECORD = 4;
+    static final byte NEXT_EMPLOYEE_ID = 5;
+    static final byte UPSERT_RECORDS = 6;
+    static final byte PAYROLL_RUN = 7;
+    static final byte UPDATE_SALARY = 8;
+
+    // Records per UPSERT_RECORDS entry, which keeps entries well under the 1 MB limit
+    private static final int UPSERT_BATCH = 1024;
+
+    private static final int MAGIC = 0x5041594A; // "PAYJ"
+    private static final int HEADER_SIZE = 12;
+    private static final String JOURNAL_FILE = "payroll.journal";
+    private static final String SNAPSHOT_FILE = "payroll.snapshot";
+
+    interface Replayer {
+        void addEmployee(int id, String name, String position, double baseSalary);
+        void updateHours(int id, double hoursWorked, double overtimeHours);
+        void removeEmployee(int id);
+        void saveRecord(PayrollRecord record);
+        void nextEmployeeId(int id);
+        void upsertRecords(List<PayrollRecord> records);
+        void payrollRun(PayrollRun run);
+        void updateSalary(int id, double baseSalary);
+    }
+
+    private final Path directory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private FileChannel channel;
+    private long generation;
+
+    // Guarded by lock
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(64 * 1024);
+    private final ByteArrayOutputStream entryBytes = new ByteArrayOutputStream(256);
+    private final DataOutputStream entryOut = new DataOutputStream(entryBytes);
+    private long appendedSeq;
+    private long durableSeq;
+    private long entriesSinceSnapshot;
+    private boolean flushing;
+    private IOException failure;
+
+    private PayrollJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    // Opens the journal in directory, feeding the snapshot and journal contents to replayer first
+    static PayrollJournal open(Path directory, Replayer replayer) throws IOException {
+        Files.createDirectories(directory);
+        PayrollJournal journal = new PayrollJournal(directory);
+        journal.recover(replayer);
+        return journal;
+    }
+
+    private void recover(Replayer replayer) throws IOException {
+        // Employees are replayed before their records, so records share the employee's name
+        NameDictionary names = new NameDictionary();
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        long snapshotGeneration = 0;
+        if (Files.exists(snapshotFile)) {
+            try (FileChannel snapshot = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+                snapshotGeneration = readHeader(snapshot, snapshotFile);
+                long end = replayEntries(snapshot, replayer, names);
+                if (end != snapshot.size()) {
+                    throw new IOException("Corrupt snapshot " + snapshotFile + " at offset " + end);
+                }
+            }
+        }
+
+        Path journalFile = directory.resolve(JOURNAL_FILE);
+        channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long journalGeneration = channel.size() >= HEADER_SIZE ? readHeader(channel, journalFile) : -1;
+        if (journalGeneration >= snapshotGeneration) {
+            generation = journalGeneration;
+            long end = replayEntries(channel, replayer, names);
+            // Drop a torn tail left by a crash mid-write
+            channel.truncate(end);
+            channel.position(end);
+        } else {
+            generation = snapshotGeneration;
+            startJournal();
+        }
+    }
+
+    private void startJournal() throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putLong(generation).flip();
+        channel.write(header, 0);
+        channel.position(HEADER_SIZE);
+        channel.force(true);
+    }
+
+    private static long readHeader(FileChannel file, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && file.read(header, header.position()) > 0) {
+            // keep reading
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException("Not a payroll journal: " + path);
+        }
+        return header.getLong();
+    }
+
+    // Replays valid entries after the header and returns the offset just past the last one
+    private static long replayEntries(FileChannel file, Replayer replayer, NameDictionary names) throws IOException {
+        file.position(HEADER_SIZE);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(file), 1 << 16));
+        long offset = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while (true) {
+            byte[] body;
+            try {
+                int length = in.readInt();
+                if (length <= 0 || length > 1 << 20) {
+                    return offset;
+                }
+                body = new byte[length];
+                in.readFully(body);
+                crc.reset();
+                crc.update(body);
+                if (in.readInt() != (int) crc.getValue()) {
+                    return offset;
+                }
+            } catch (EOFException e) {
+                return offset;
+            }
+            apply(body, replayer, names);
+            offset += 8 + body.length;
+        }
+    }
+
+    private static void apply(byte[] body, Replayer replayer, NameDictionary names) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = in.readByte();
+        switch (type) {
+            case ADD_EMPLOYEE:
+                replayer.addEmployee(in.readInt(), names.share(in.readUTF()), in.readUTF(), in.readDouble());
+                break;
+            case UPDATE_HOURS:
+                replayer.updateHours(in.readInt(), in.readDouble(), in.readDouble());
+                break;
+            case REMOVE_EMPLOYEE:
+                replayer.removeEmployee(in.readInt());
+                break;
+            case SAVE_RECORD:
+                replayer.saveRecord(readRecord(in, names));
+                break;
+            case NEXT_EMPLOYEE_ID:
+                replayer.nextEmployeeId(in.readInt());
+                break;
+            case UPSERT_RECORDS:
+                int count = in.readInt();
+                List<PayrollRecord> records = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    records.add(readRecord(in, names));
+                }
+                replayer.upsertRecords(records);
+                break;
+            case PAYROLL_RUN:
+                replayer.payrollRun(readRun(in));
+                break;
+            case UPDATE_SALARY:
+                replayer.updateSalary(in.readInt(), in.readDouble());
+                break;
+            default:
+                throw new IOException("Unknown journal entry type: " + type);
+        }
+    }
+
+    long appendAddEmployee(int id, String name, String position, double baseSalary) {
+        lock.lock();
+        try {
+            DataOutputStream out = beginEntry(ADD_EMPLOYEE);
+            out.writeInt(id);
+            out.writeUTF(name);
+            out.writeUTF(position);
+            out.writeDouble(baseSalary);
+            return endEntry();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long appendUpdateHours(int id, double hoursWorked, double overtimeHours) {
+        lock.lock();
+        try {
+            DataOutputStream out = beginEntry(UPDATE_HOURS);
+            out.writeInt(id);
+            out.writeDouble(hoursWorked);
+            out.writeDouble(overtimeHours);
+            return endEntry();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long appendUpdateSalary(int id, double baseSalary) {
+        lock.lock();
+        try {
+            DataOutputStream out = beginEntry(UPDATE_SALARY);
+            out.writeInt(id);
+            out.writeDouble(baseSalary);
+            return endEntry();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long appendRemoveEmployee(int id) {
+        lock.lock();
+        try {
+            DataOutputStream out = beginEntry(REMOVE_EMPLOYEE);
+            out.writeInt(id);
+            return endEntry();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes as many entries as the batch size needs and returns the sequence number of the last
+    long appendUpsertRecords(Collection<? extends PayrollRecord> records) {
+        lock.lock();
+        try {
+            long seq = appendedSeq;
+            DataOutputStream out = null;
+            int inEntry = 0;
+            int left = records.size();
+            for (PayrollRecord record : records) {
+                if (inEntry == 0) {
+                    out = beginEntry(UPSERT_RECORDS);
+                    out.writeInt(Math.min(left, UPSERT_BATCH));
+                }
+                writeRecord(out, record);
+                left--;
+                if (++inEntry == UPSERT_BATCH || left == 0) {
+                    seq = endEntry();
+                    inEntry = 0;
+                }
+            }
+            return seq;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long appendPayrollRun(PayrollRun run) {
+        lock.lock();
+        try {
+            writeRun(beginEntry(PAYROLL_RUN), run);
+            return endEntry();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long appendRecord(PayrollRecord record) {
+        lock.lock();
+        try {
+            writeRecord(beginEntry(SAVE_RECORD), record);
+            return endEntry();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, PayrollRecord record) throws IOException {
+        out.writeInt(record.getEmployeeId());
+        out.writeUTF(record.getEmployeeName());
+        out.writeDouble(record.getHoursWorked());
+        out.writeDouble(record.getOvertimeHours());
+        // Cents as doubles (x/100.0) read back to the same cents via Money.toCents
+        out.writeDouble(record.getGrossPay());
+        out.writeDouble(record.getTax());
+        out.writeDouble(record.getNetPay());
+        out.writeLong(record.getPayDate().toEpochDay());
+    }
+
+    private static PayrollRecord readRecord(DataInputStream in, NameDictionary names) throws IOException {
+        return new PayrollRecord(in.readInt(), names.share(in.readUTF()), in.readDouble(), in.readDouble(),
+                                 in.readDouble(), in.readDouble(), in.readDouble(),
+                                 PayDates.ofEpochDay(in.readLong()));
+    }
+
+    private static void writeRun(DataOutputStream out, PayrollRun run) throws IOException {
+        YearMonth month = run.getPeriod().getMonth();
+        out.writeInt(month.getYear());
+        out.writeByte(month.getMonthValue());
+        out.writeLong(run.getPeriod().getPayDate().toEpochDay());
+        out.writeByte(run.getStatus().ordinal());
+        out.writeInt(run.getLastEmployeeId());
+        out.writeInt(run.getChunkCount());
+        out.writeInt(run.getRecordCount());
+    }
+
+    private static PayrollRun readRun(DataInputStream in) throws IOException {
+        YearMonth month = YearMonth.of(in.readInt(), in.readByte());
+        PayPeriod period = new PayPeriod(month, PayDates.ofEpochDay(in.readLong()));
+        int status = in.readByte();
+        if (status < 0 || status >= PayrollRun.Status.values().length) {
+            throw new IOException("Unknown payroll run status: " + status);
+        }
+        return new PayrollRun(period, PayrollRun.Status.values()[status], in.readInt(), in.readInt(), in.readInt());
+    }
+
+    private DataOutputStream beginEntry(byte type) throws IOException {
+        entryBytes.reset();
+        entryOut.writeByte(type);
+        return entryOut;
+    }
+
+    private long endEntry() throws IOException {
+        frame(entryBytes, pending);
+        entriesSinceSnapshot++;
+        return ++appendedSeq;
+    }
+
+    private static void frame(ByteArrayOutputStream body, ByteArrayOutputStream target) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] bytes = body.toByteArray();
+        crc.update(bytes);
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.writeInt((int) crc.getValue());
+    }
+
+    // Blocks until the entry with the given sequence number is on disk
+    void awaitDurable(long seq) {
+        lock.lock();
+        try {
+            while (durableSeq < seq) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Journal write failed", failure);
+                }
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+                // Become the flusher for everything appended so far
+                flushing = true;
+                ByteArrayOutputStream batch = pending;
+                pending = new ByteArrayOutputStream(Math.max(64 * 1024, batch.size()));
+                long batchEnd = appendedSeq;
+                lock.unlock();
+                IOException error = null;
+                try {
+                    writeFully(ByteBuffer.wrap(batch.toByteArray()));
+                    channel.force(false);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+                flushing = false;
+                if (error == null) {
+                    durableSeq = batchEnd;
+                } else {
+                    failure = error;
+                }
+                flushed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    long getEntriesSinceSnapshot() {
+        lock.lock();
+        try {
+            return entriesSinceSnapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    interface SnapshotWriter {
+        void write(SnapshotOutput out) throws IOException;
+    }
+
+    // Entry writer for snapshots, same format as the journal
+    static class SnapshotOutput {
+        private final DataOutputStream file;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        private final DataOutputStream bodyOut = new DataOutputStream(body);
+
+        SnapshotOutput(DataOutputStream file) {
+            this.file = file;
+        }
+
+        void addEmployee(int id, String name, String position, double baseSalary,
+                         double hoursWorked, double overtimeHours) throws IOException {
+            body.reset();
+            bodyOut.writeByte(ADD_EMPLOYEE);
+            bodyOut.writeInt(id);
+            bodyOut.writeUTF(name);
+            bodyOut.writeUTF(position);
+            bodyOut.writeDouble(baseSalary);
+            flushEntry();
+            body.reset();
+            bodyOut.writeByte(UPDATE_HOURS);
+            bodyOut.writeInt(id);
+            bodyOut.writeDouble(hoursWorked);
+            bodyOut.writeDouble(overtimeHours);
+            flushEntry();
+        }
+
+        void nextEmployeeId(int id) throws IOException {
+            body.reset();
+            bodyOut.writeByte(NEXT_EMPLOYEE_ID);
+            bodyOut.writeInt(id);
+            flushEntry();
+        }
+
+        void saveRecord(PayrollRecord record) throws IOException {
+            body.reset();
+            bodyOut.writeByte(SAVE_RECORD);
+            writeRecord(bodyOut, record);
+            flushEntry();
+        }
+
+        void payrollRun(PayrollRun run) throws IOException {
+            body.reset();
+            bodyOut.writeByte(PAYROLL_RUN);
+            writeRun(bodyOut, run);
+            flushEntry();
+        }
+
+        private void flushEntry() throws IOException {
+            ByteArrayOutputStream framed = new ByteArrayOutputStream(body.size() + 8);
+            frame(body, framed);
+            framed.writeTo(file);
+        }
+    }
+
+    /**
+     * Writes a snapshot and starts a new, empty journal. The caller must make
+     * sure no mutations happen while this runs, so the snapshot and the journal
+     * agree on what has been applied.
+     */
+    void snapshot(SnapshotWriter writer) throws IOException {
+        awaitDurable(getAppendedSeq());
+        lock.lock();
+        try {
+            long nextGeneration = generation + 1;
+            Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+            Path tempFile = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileChannel temp = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(temp), 1 << 16));
+                out.writeInt(MAGIC);
+                out.writeLong(nextGeneration);
+                writer.write(new SnapshotOutput(out));
+                out.flush();
+                temp.force(true);
+            }
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // The rename must be on disk before the old journal goes: recovering the old
+            // snapshot with the new, empty journal would lose every entry of the old one
+            syncDirectory();
+
+            generation = nextGeneration;
+            startJournal();
+            entriesSinceSnapshot = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void syncDirectory() throws IOException {
+        FileChannel dir;
+        try {
+            dir = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // Windows cannot open a directory as a file; NTFS makes the rename durable itself
+            return;
+        }
+        try (dir) {
+            dir.force(true);
+        }
+    }
+
+    private long getAppendedSeq() {
+        lock.lock();
+        try {
+            return appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        awaitDurable(getAppendedSeq());
+        channel.close();
+    }
+}
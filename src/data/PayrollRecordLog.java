@@ -0,0 +1,101 @@
+package data;
+
+import model.PayrollRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Append-only log of payroll records.
+ *
+ * Appends are serialized on the log's own monitor (a few array stores, so the
+ * critical section is tiny); reads never lock. A reader always sees a prefix of
+ * the log: every record appended before the size it observed is fully visible.
+ *
+ * Records are never removed from a log. To replace some, rewrite() retires the
+ * log and returns a new one for the store to publish in its place; readers
+ * holding the old log keep a consistent view of it.
+ */
+class PayrollRecordLog {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private volatile PayrollRecord[] elements;
+    private volatile int size;
+    // Guarded by this
+    private boolean retired;
+
+    PayrollRecordLog() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private PayrollRecordLog(int capacity) {
+        elements = new PayrollRecord[capacity];
+    }
+
+    // Returns the record's index, or -1 if the log has been retired by rewrite()
+    synchronized int append(PayrollRecord record) {
+        if (retired) {
+            return -1;
+        }
+        int index = size;
+        PayrollRecord[] current = elements;
+        if (index == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            elements = current;
+        }
+        current[index] = record;
+        // Publishing the new size makes the record visible to readers
+        size = index + 1;
+        return index;
+    }
+
+    int size() {
+        return size;
+    }
+
+    PayrollRecord get(int index) {
+        // Read size before the array so the array is at least as new as the size
+        int currentSize = size;
+        if (index < 0 || index >= currentSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + currentSize);
+        }
+        return elements[index];
+    }
+
+    void copyTo(List<PayrollRecord> target) {
+        int currentSize = size;
+        PayrollRecord[] snapshot = elements;
+        for (int i = 0; i < currentSize; i++) {
+            target.add(snapshot[i]);
+        }
+    }
+
+    /**
+     * Retires this log and returns a new one holding its records, minus those
+     * in removed (compared by identity), followed by added. Appends to this
+     * log fail from now on, so a writer racing the rewrite retries once the
+     * new log has been published.
+     */
+    synchronized PayrollRecordLog rewrite(Set<PayrollRecord> removed, List<PayrollRecord> added) {
+        retired = true;
+        PayrollRecordLog copy = new PayrollRecordLog(Math.max(INITIAL_CAPACITY, size + added.size()));
+        PayrollRecord[] current = elements;
+        for (int i = 0; i < size; i++) {
+            if (!removed.contains(current[i])) {
+                copy.append(current[i]);
+            }
+        }
+        for (PayrollRecord record : added) {
+            copy.append(record);
+        }
+        return copy;
+    }
+
+    List<PayrollRecord> snapshot() {
+        List<PayrollRecord> copy = new ArrayList<>(size);
+        copyTo(copy);
+        return copy;
+    }
+}
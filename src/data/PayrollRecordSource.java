@@ -0,0 +1,28 @@
+package data;
+
+import model.PayrollRecord;
+
+import java.util.List;
+
+/**
+ * Read-only, random-access sequence of payroll records. Lets tables and reports
+ * page through history without the records being copied into a list first.
+ */
+public interface PayrollRecordSource {
+    int size();
+
+    PayrollRecord get(int index);
+
+    // Wraps a list without copying it
+    static PayrollRecordSource of(List<PayrollRecord> records) {
+        return new PayrollRecordSource() {
+            public int size() {
+                return records.size();
+            }
+
+            public PayrollRecord get(int index) {
+                return records.get(index);
+            }
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package data;
+
+import model.Employee;
+import model.PayrollRecord;
+import model.PayrollRun;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Employee and payroll store used by the GUI, the run engine and the importer.
+ *
+ * Implementations: SimpleDataManager (in memory, or journaled to a directory),
+ * ColumnarDataManager (in memory, in compact primitive columns),
+ * JdbcDataManager (relational database), and CachingPayrollRepository, which
+ * serves employee reads from memory in front of any of them.
+ *
+ * Pay-period runs: commitPayrollRun() upserts, so a record replaces whatever
+ * its employee already has in the same month and running a period twice
+ * leaves one record per employee. The period's PayrollRun is stored with each
+ * chunk so an interrupted run can resume (see utils.PayrollPeriodRunner).
+ *
+ * Change tracking: EmployeeListeners are told the ID of every employee
+ * added, removed or changed through the store, so derived state such as a
+ * utils.DraftPayrollRun can recompute just those employees.
+ *
+ * History queries return records most recent pay date first; records sharing
+ * a pay date keep the order in which they were saved. Employees returned may
+ * be the store's own objects or copies depending on the implementation, so
+ * change hours through updateEmployeeHours().
+ */
+public interface PayrollRepository extends Closeable {
+    int addEmployee(String name, String role, double baseSalary);
+
+    // Adds the first count employees from parallel arrays and returns their IDs
+    default int[] addEmployees(String[] names, String[] roles, double[] baseSalaries, int count) {
+        if (count < 0 || count > names.length || count > roles.length || count > baseSalaries.length) {
+            throw new IndexOutOfBoundsException("Batch of " + count + " exceeds an array");
+        }
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = addEmployee(names[i], roles[i], baseSalaries[i]);
+        }
+        return ids;
+    }
+
+    List<Employee> getAllEmployees();
+
+    // Null if there is no such employee
+    Employee getEmployee(int id);
+
+    List<Employee> getEmployeesByPosition(String position);
+
+    void updateEmployeeHours(int employeeId, double hoursWorked, double overtimeHours);
+
+    // Sets hours for the first count entries; skips unknown IDs and returns the number updated
+    default int updateHoursBatch(int[] employeeIds, double[] hoursWorked, double[] overtimeHours, int count) {
+        if (count < 0 || count > employeeIds.length || count > hoursWorked.length || count > overtimeHours.length) {
+            throw new IndexOutOfBoundsException("Batch of " + count + " exceeds an array");
+        }
+        int updated = 0;
+        for (int i = 0; i < count; i++) {
+            if (getEmployee(employeeIds[i]) != null) {
+                updateEmployeeHours(employeeIds[i], hoursWorked[i], overtimeHours[i]);
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    void removeEmployee(int employeeId);
+
+    void savePayrollRecord(PayrollRecord record);
+
+    // Saves a whole run; stores that support it do so in one transaction or flush
+    default int savePayrollRecords(Collection<? extends PayrollRecord> records) {
+        for (PayrollRecord record : records) {
+            savePayrollRecord(record);
+        }
+        return records.size();
+    }
+
+    /**
+     * Commits one chunk of a pay-period run: each record replaces every record
+     * its employee already has in the record's month (records in the same call
+     * apply in order), then run becomes the month's stored run state. Returns
+     * the records replaced, including any earlier ones of this call.
+     */
+    List<PayrollRecord> commitPayrollRun(PayrollRun run, Collection<? extends PayrollRecord> records);
+
+    // The last state committed for the month's run; null if it was never run
+    PayrollRun getPayrollRun(YearMonth period);
+
+    List<PayrollRecord> getAllPayrollRecords();
+
+    // All history as a random-access source, for tables that read only visible rows
+    PayrollRecordSource getPayrollHistory();
+
+    // Inclusive of both dates
+    List<PayrollRecord> getPayrollRecordsBetween(LocalDate from, LocalDate to);
+
+    List<PayrollRecord> getLatestPayrollRecords(int count);
+
+    List<PayrollRecord> getPayrollRecordsForEmployee(int employeeId);
+
+    List<PayrollRecord> getPayrollRecordsForDate(LocalDate payDate);
+
+    List<PayrollRecord> getPayrollRecordsForPeriod(YearMonth period);
+
+    int getPayrollRecordCount();
+
+    void addEmployeeListener(EmployeeListener listener);
+
+    void removeEmployeeListener(EmployeeListener listener);
+
+    // Called on the thread that made the change, possibly under a store lock or
+    // the employee's monitor, so implementations should only record the ID. A
+    // batch may report IDs it did not change.
+    interface EmployeeListener {
+        void employeeChanged(int employeeId);
+    }
+}
@@ -0,0 +1,214 @@
+package data;
+
+import model.Money;
+import model.PayrollRecord;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Running totals of payroll records (count, gross, tax, net, hours and
+ * overtime) overall, per pay period (month), per position and per employee
+ * per pay period, kept up to date as records are added. Every query is a map
+ * lookup, or at most twelve for year to date, so dashboards and year-to-date
+ * figures on pay stubs do not scan the history.
+ *
+ * Money is summed in cents and hours in hundredths, so totals are exact and
+ * do not depend on the order records were added. Employee totals are kept in
+ * columns per period (under 100 bytes per employee paid in it) rather than an
+ * object per employee, and year to date sums the periods from January through
+ * the one asked for, so it is right for any month whatever was saved later.
+ * A record is added to its four totals one after another: a reader running
+ * alongside add() can see it counted in some of them and not yet in others.
+ * remove() takes back a record replaced by a rerun of its pay period.
+ * Thread-safe.
+ */
+public class PayrollRollups {
+    // Used for records whose employee (and so position) is no longer known
+    public static final String UNKNOWN_POSITION = "(unknown)";
+
+    private final Accumulator total = new Accumulator();
+    private final Map<YearMonth, Accumulator> byPeriod = new ConcurrentHashMap<>();
+    private final Map<String, Accumulator> byPosition = new ConcurrentHashMap<>();
+    private final Map<YearMonth, EmployeeColumns> byEmployeePeriod = new ConcurrentHashMap<>();
+
+    // position is the employee's position when paid; null if unknown
+    public void add(PayrollRecord record, String position) {
+        add(record, position, 1);
+    }
+
+    // Takes back a record added earlier with the same position
+    public void remove(PayrollRecord record, String position) {
+        add(record, position, -1);
+    }
+
+    private void add(PayrollRecord record, String position, int sign) {
+        total.add(record, sign);
+        byPeriod.computeIfAbsent(record.getPayPeriod(), key -> new Accumulator()).add(record, sign);
+        byPosition.computeIfAbsent(position == null ? UNKNOWN_POSITION : position, key -> new Accumulator())
+                  .add(record, sign);
+        byEmployeePeriod.computeIfAbsent(record.getPayPeriod(), key -> new EmployeeColumns()).add(record, sign);
+    }
+
+    public Totals getTotals() {
+        return total.snapshot();
+    }
+
+    public Totals getPeriodTotals(YearMonth period) {
+        return snapshot(byPeriod.get(period));
+    }
+
+    public Totals getPositionTotals(String position) {
+        return snapshot(byPosition.get(position));
+    }
+
+    // Everything paid to the employee from January of through's year to the end of through
+    public Totals getYearToDate(int employeeId, YearMonth through) {
+        Accumulator sum = new Accumulator();
+        for (int month = 1; month <= through.getMonthValue(); month++) {
+            EmployeeColumns columns = byEmployeePeriod.get(through.withMonth(month));
+            if (columns != null) {
+                columns.addTo(employeeId, sum);
+            }
+        }
+        return sum.snapshot();
+    }
+
+    // Copies: the cost is the number of periods, not the number of records
+    public SortedMap<YearMonth, Totals> getTotalsByPeriod() {
+        SortedMap<YearMonth, Totals> result = new TreeMap<>();
+        byPeriod.forEach((period, accumulator) -> result.put(period, accumulator.snapshot()));
+        return result;
+    }
+
+    public SortedMap<String, Totals> getTotalsByPosition() {
+        SortedMap<String, Totals> result = new TreeMap<>();
+        byPosition.forEach((position, accumulator) -> result.put(position, accumulator.snapshot()));
+        return result;
+    }
+
+    private static Totals snapshot(Accumulator accumulator) {
+        return accumulator == null ? Totals.EMPTY : accumulator.snapshot();
+    }
+
+    private static final class Accumulator {
+        private long count;
+        private long grossPayCents;
+        private long taxCents;
+        private long netPayCents;
+        private long hoursHundredths;
+        private long overtimeHundredths;
+
+        // sign is 1 to add the record, -1 to take it back
+        synchronized void add(PayrollRecord record, int sign) {
+            count += sign;
+            grossPayCents += sign * record.getGrossPayCents();
+            taxCents += sign * record.getTaxCents();
+            netPayCents += sign * record.getNetPayCents();
+            hoursHundredths += sign * Math.round(record.getHoursWorked() * 100);
+            overtimeHundredths += sign * Math.round(record.getOvertimeHours() * 100);
+        }
+
+        synchronized void add(long count, long grossPayCents, long taxCents, long netPayCents,
+                              long hoursHundredths, long overtimeHundredths) {
+            this.count += count;
+            this.grossPayCents += grossPayCents;
+            this.taxCents += taxCents;
+            this.netPayCents += netPayCents;
+            this.hoursHundredths += hoursHundredths;
+            this.overtimeHundredths += overtimeHundredths;
+        }
+
+        synchronized Totals snapshot() {
+            return new Totals(count, grossPayCents, taxCents, netPayCents, hoursHundredths, overtimeHundredths);
+        }
+    }
+
+    // One row per employee paid in the period
+    private static final class EmployeeColumns {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final IntIndex rows = new IntIndex(INITIAL_CAPACITY);
+        private long[] counts = new long[INITIAL_CAPACITY];
+        private long[] grossPayCents = new long[INITIAL_CAPACITY];
+        private long[] taxCents = new long[INITIAL_CAPACITY];
+        private long[] netPayCents = new long[INITIAL_CAPACITY];
+        private long[] hoursHundredths = new long[INITIAL_CAPACITY];
+        private long[] overtimeHundredths = new long[INITIAL_CAPACITY];
+        private int size;
+
+        synchronized void add(PayrollRecord record, int sign) {
+            int row = rows.get(record.getEmployeeId(), -1);
+            if (row < 0) {
+                if (size == counts.length) {
+                    grow();
+                }
+                row = size++;
+                rows.put(record.getEmployeeId(), row);
+            }
+            counts[row] += sign;
+            grossPayCents[row] += sign * record.getGrossPayCents();
+            taxCents[row] += sign * record.getTaxCents();
+            netPayCents[row] += sign * record.getNetPayCents();
+            hoursHundredths[row] += sign * Math.round(record.getHoursWorked() * 100);
+            overtimeHundredths[row] += sign * Math.round(record.getOvertimeHours() * 100);
+        }
+
+        synchronized void addTo(int employeeId, Accumulator sum) {
+            int row = rows.get(employeeId, -1);
+            if (row >= 0) {
+                sum.add(counts[row], grossPayCents[row], taxCents[row], netPayCents[row],
+                        hoursHundredths[row], overtimeHundredths[row]);
+            }
+        }
+
+        private void grow() {
+            int capacity = counts.length * 2;
+            counts = Arrays.copyOf(counts, capacity);
+            grossPayCents = Arrays.copyOf(grossPayCents, capacity);
+            taxCents = Arrays.copyOf(taxCents, capacity);
+            netPayCents = Arrays.copyOf(netPayCents, capacity);
+            hoursHundredths = Arrays.copyOf(hoursHundredths, capacity);
+            overtimeHundredths = Arrays.copyOf(overtimeHundredths, capacity);
+        }
+    }
+
+    public static final class Totals {
+        public static final Totals EMPTY = new Totals(0, 0, 0, 0, 0, 0);
+
+        private final long count;
+        private final long grossPayCents;
+        private final long taxCents;
+        private final long netPayCents;
+        private final long hoursHundredths;
+        private final long overtimeHundredths;
+
+        Totals(long count, long grossPayCents, long taxCents, long netPayCents,
+               long hoursHundredths, long overtimeHundredths) {
+            this.count = count;
+            this.grossPayCents = grossPayCents;
+            this.taxCents = taxCents;
+            this.netPayCents = netPayCents;
+            this.hoursHundredths = hoursHundredths;
+            this.overtimeHundredths = overtimeHundredths;
+        }
+
+        public long getCount() { return count; }
+        public long getGrossPayCents() { return grossPayCents; }
+        public long getTaxCents() { return taxCents; }
+        public long getNetPayCents() { return netPayCents; }
+        public double getHoursWorked() { return hoursHundredths / 100.0; }
+        public double getOvertimeHours() { return overtimeHundredths / 100.0; }
+
+        @Override
+        public String toString() {
+            return String.format("Totals[Records: %d, Gross: %s, Tax: %s, Net: %s, Hours: %.2f, Overtime: %.2f]",
+                                 count, Money.format(grossPayCents), Money.format(taxCents),
+                                 Money.format(netPayCents), getHoursWorked(), getOvertimeHours());
+        }
+    }
+}
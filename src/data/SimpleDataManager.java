@@ -2,23 +2,179 @@ package data;
 
 import model.Employee;
 import model.PayrollRecord;
+import model.PayrollRun;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory employee and payroll store, safe for concurrent use without a
+ * global lock. Optionally durable: see SimpleDataManager(Path).
+ *
+ * Consistency guarantees:
+ * - Employee adds, lookups and removals go through a ConcurrentHashMap, so each
+ *   single operation is atomic; getAllEmployees() is weakly consistent (it may
+ *   or may not include employees added or removed while it runs).
+ * - updateEmployeeHours() sets hours and overtime together under the
+ *   employee's monitor. Readers that take the same monitor, as
+ *   PayrollCalculator does, see both old or both new values; plain getter
+ *   calls always see written values but may see one of each.
+ * - Payroll records go to append-only logs, one per pay date, kept in a skip
+ *   list ordered by date. History reads return a snapshot that contains every
+ *   record saved before the call started, and cost proportional to the
+ *   records returned rather than to the whole history.
+ * - Secondary indexes (employee ID to records, position to employees) are
+ *   updated right after the primary write, so a concurrent reader may briefly
+ *   see a record in the history before it shows up in its employee's postings.
+ * - commitPayrollRun() replaces records by swapping in a rewritten log for
+ *   each pay date and employee it touches, so readers see each log either
+ *   before or after the upsert. Upserts are serialized among themselves; a
+ *   plain save racing one on the same log waits for the swap. Views taken
+ *   earlier keep the logs they captured. The cost is the size of the pay
+ *   dates that lose records, not of the whole history; a first run of a
+ *   period replaces nothing and only appends.
+ *
+ * History queries return records most recent pay date first; records sharing
+ * a pay date keep the order in which they were saved.
+ *
+ * Durability: when opened on a directory every mutation is first applied in
+ * memory and then appended to a binary journal; the call returns once its
+ * journal entry is fsynced. That includes Employee.setBaseSalary() on an
+ * employee of this store. Concurrent writers share fsyncs (group commit), so
+ * a batch of threads pays for one disk flush rather than one each. Every
+ * snapshotInterval journal entries the full state is written to a snapshot and
+ * the journal restarts, which keeps recovery time bounded. Readers may see a
+ * change slightly before it is durable.
+ *
+ * Change tracking: EmployeeListeners also hear of salary and hours changes
+ * made directly through the setters of this store's Employee objects.
+ */
+public class SimpleDataManager implements PayrollRepository {
+    public static final long DEFAULT_SNAPSHOT_INTERVAL = 1_000_000;
+
+    private final Map<Integer, Employee> employees;
+    private final ConcurrentNavigableMap<LocalDate, PayrollRecordLog> recordsByDate;
+    private final AtomicInteger payrollRecordCount;
+    private final Map<Integer, PayrollRecordLog> recordsByEmployee;
+    private final Map<String, Set<Integer>> employeesByPosition;
+    private final AtomicInteger nextEmployeeId;
+    private final Map<YearMonth, PayrollRun> payrollRuns;
+    // Serializes upserts, which replace logs rather than append to them
+    private final Object historyRewrites = new Object();
+
+    // Only set for durable stores
+    private final PayrollJournal journal;
+    private final long snapshotInterval;
+    // Mutations share the read side; a snapshot takes the write side
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+
+    private final EmployeeListeners employeeListeners = new EmployeeListeners();
+    private final Employee.ChangeListener employeeChanges = new Employee.ChangeListener() {
+        public void employeeChanged(Employee employee) {
+            employeeListeners.fire(employee.getEmployeeId());
+        }
+
+        // Salary is set on the Employee rather than through the store, so it is journaled from here
+        public void baseSalaryChanged(Employee employee) {
+            if (journal != null) {
+                write(() -> {
+                    // The value current under the monitor, so the last entry always holds the last salary set
+                    synchronized (employee) {
+                        return journal.appendUpdateSalary(employee.getEmployeeId(), employee.getBaseSalary());
+                    }
+                });
+            }
+            employeeListeners.fire(employee.getEmployeeId());
+        }
+    };
 
-public class SimpleDataManager {
-    private Map<Integer, Employee> employees;
-    private List<PayrollRecord> payrollRecords;
-    private AtomicInteger nextEmployeeId;
-    
     public SimpleDataManager() {
-        employees = new HashMap<>();
-        payrollRecords = new ArrayList<>();
+        this(true);
+    }
+
+    // In-memory store, optionally seeded with the three sample employees
+    public SimpleDataManager(boolean withSampleData) {
+        employees = new ConcurrentHashMap<>();
+        recordsByDate = new ConcurrentSkipListMap<>();
+        payrollRecordCount = new AtomicInteger();
+        recordsByEmployee = new ConcurrentHashMap<>();
+        employeesByPosition = new ConcurrentHashMap<>();
         nextEmployeeId = new AtomicInteger(1);
-        
-        // Add some sample data
-        addSampleData();
+        payrollRuns = new ConcurrentHashMap<>();
+        journal = null;
+        snapshotInterval = 0;
+
+        if (withSampleData) {
+            addSampleData();
+        }
     }
-    
+
+    // Durable store in dataDirectory; existing data is recovered from its snapshot and journal
+    public SimpleDataManager(Path dataDirectory) throws IOException {
+        this(dataDirectory, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public SimpleDataManager(Path dataDirectory, long snapshotInterval) throws IOException {
+        employees = new ConcurrentHashMap<>();
+        recordsByDate = new ConcurrentSkipListMap<>();
+        payrollRecordCount = new AtomicInteger();
+        recordsByEmployee = new ConcurrentHashMap<>();
+        employeesByPosition = new ConcurrentHashMap<>();
+        nextEmployeeId = new AtomicInteger(1);
+        payrollRuns = new ConcurrentHashMap<>();
+        this.snapshotInterval = snapshotInterval;
+        // Replay goes straight to the apply methods while journal is still unset
+        journal = PayrollJournal.open(dataDirectory, new PayrollJournal.Replayer() {
+            public void addEmployee(int id, String name, String position, double baseSalary) {
+                applyAddEmployee(id, name, position, baseSalary);
+                nextEmployee(id + 1);
+            }
+            public void updateHours(int id, double hoursWorked, double overtimeHours) {
+                Employee employee = employees.get(id);
+                if (employee != null) {
+                    employee.setHoursWorked(hoursWorked);
+                    employee.setOvertimeHours(overtimeHours);
+                }
+            }
+            public void removeEmployee(int id) {
+                applyRemoveEmployee(id);
+            }
+            public void saveRecord(PayrollRecord record) {
+                applySaveRecord(record);
+            }
+            public void nextEmployeeId(int id) {
+                nextEmployee(id);
+            }
+            public void upsertRecords(List<PayrollRecord> records) {
+                applyUpsertRecords(records);
+            }
+            public void payrollRun(PayrollRun run) {
+                payrollRuns.put(run.getPeriod().getMonth(), run);
+            }
+            public void updateSalary(int id, double baseSalary) {
+                Employee employee = employees.get(id);
+                if (employee != null) {
+                    employee.setBaseSalary(baseSalary);
+                }
+            }
+        });
+    }
+
+    private void nextEmployee(int atLeast) {
+        nextEmployeeId.accumulateAndGet(atLeast, Math::max);
+    }
+
     private void addSampleData() {
         addEmployee("John Doe", "Manager", 5000.0);
         addEmployee("Jane Smith", "Technical", 4000.0);
@@ -27,11 +183,46 @@ public class SimpleDataManager {
     
     public int addEmployee(String name, String role, double baseSalary) {
         int id = nextEmployeeId.getAndIncrement();
+        write(() -> {
+            applyAddEmployee(id, name, role, baseSalary);
+            return journal == null ? 0 : journal.appendAddEmployee(id, name, role, baseSalary);
+        });
+        return id;
+    }
+
+    /**
+     * Adds the first count employees from parallel arrays and returns their
+     * IDs, which are consecutive. A durable store waits for one journal flush
+     * for the whole batch instead of one per employee.
+     */
+    public int[] addEmployees(String[] names, String[] roles, double[] baseSalaries, int count) {
+        if (count < 0 || count > names.length || count > roles.length || count > baseSalaries.length) {
+            throw new IndexOutOfBoundsException("Batch of " + count + " exceeds an array");
+        }
+        int firstId = nextEmployeeId.getAndAdd(count);
+        int[] ids = new int[count];
+        write(() -> {
+            long seq = 0;
+            for (int i = 0; i < count; i++) {
+                ids[i] = firstId + i;
+                applyAddEmployee(ids[i], names[i], roles[i], baseSalaries[i]);
+                if (journal != null) {
+                    seq = journal.appendAddEmployee(ids[i], names[i], roles[i], baseSalaries[i]);
+                }
+            }
+            return seq;
+        });
+        return ids;
+    }
+
+    private void applyAddEmployee(int id, String name, String role, double baseSalary) {
         Employee employee = new Employee(id, name, role, baseSalary);
+        employee.setChangeListener(employeeChanges);
         employees.put(id, employee);
-        return id;
+        employeesByPosition.computeIfAbsent(role, r -> ConcurrentHashMap.newKeySet()).add(id);
+        employeeListeners.fire(id);
     }
-    
+
     public List<Employee> getAllEmployees() {
         return new ArrayList<>(employees.values());
     }
@@ -43,23 +234,337 @@ public class SimpleDataManager {
     public void updateEmployeeHours(int employeeId, double hoursWorked, double overtimeHours) {
         Employee employee = employees.get(employeeId);
         if (employee != null) {
-            employee.setHoursWorked(hoursWorked);
-            employee.setOvertimeHours(overtimeHours);
+            write(() -> {
+                // Journal under the same monitor so replay sees updates in memory order
+                synchronized (employee) {
+                    employee.setHoursWorked(hoursWorked);
+                    employee.setOvertimeHours(overtimeHours);
+                    return journal == null ? 0 : journal.appendUpdateHours(employeeId, hoursWorked, overtimeHours);
+                }
+            });
         }
     }
-    
+
+    /**
+     * Sets hours for the first count entries of parallel arrays, with one
+     * journal flush for the whole batch. Unknown employee IDs are skipped;
+     * returns the number of employees updated.
+     */
+    public int updateHoursBatch(int[] employeeIds, double[] hoursWorked, double[] overtimeHours, int count) {
+        if (count < 0 || count > employeeIds.length || count > hoursWorked.length || count > overtimeHours.length) {
+            throw new IndexOutOfBoundsException("Batch of " + count + " exceeds an array");
+        }
+        int[] updated = new int[1];
+        write(() -> {
+            long seq = 0;
+            for (int i = 0; i < count; i++) {
+                Employee employee = employees.get(employeeIds[i]);
+                if (employee == null) {
+                    continue;
+                }
+                synchronized (employee) {
+                    employee.setHoursWorked(hoursWorked[i]);
+                    employee.setOvertimeHours(overtimeHours[i]);
+                    if (journal != null) {
+                        seq = journal.appendUpdateHours(employeeIds[i], hoursWorked[i], overtimeHours[i]);
+                    }
+                }
+                updated[0]++;
+            }
+            return seq;
+        });
+        return updated[0];
+    }
+
     public void savePayrollRecord(PayrollRecord record) {
-        payrollRecords.add(record);
+        write(() -> {
+            applySaveRecord(record);
+            return journal == null ? 0 : journal.appendRecord(record);
+        });
     }
-    
+
+    // Saves a whole run with one journal flush
+    public int savePayrollRecords(Collection<? extends PayrollRecord> records) {
+        write(() -> {
+            long seq = 0;
+            for (PayrollRecord record : records) {
+                applySaveRecord(record);
+                if (journal != null) {
+                    seq = journal.appendRecord(record);
+                }
+            }
+            return seq;
+        });
+        return records.size();
+    }
+
+    private void applySaveRecord(PayrollRecord record) {
+        appendTo(recordsByDate, record.getPayDate(), record);
+        payrollRecordCount.incrementAndGet();
+        appendTo(recordsByEmployee, record.getEmployeeId(), record);
+    }
+
+    private static <K> void appendTo(Map<K, PayrollRecordLog> logs, K key, PayrollRecord record) {
+        while (logs.computeIfAbsent(key, k -> new PayrollRecordLog()).append(record) < 0) {
+            // An upsert retired the log and is about to publish its replacement
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Saves a chunk of a pay-period run: each record replaces whatever its
+     * employee already has in the same month, then run becomes the month's
+     * run state. A durable store journals the records and the state together
+     * and returns once both are on disk.
+     */
+    public List<PayrollRecord> commitPayrollRun(PayrollRun run, Collection<? extends PayrollRecord> records) {
+        List<PayrollRecord> replaced = new ArrayList<>();
+        write(() -> {
+            // Journal under the same lock so replay upserts in memory order
+            synchronized (historyRewrites) {
+                replaced.addAll(applyUpsertRecords(records));
+                payrollRuns.put(run.getPeriod().getMonth(), run);
+                if (journal == null) {
+                    return 0;
+                }
+                journal.appendUpsertRecords(records);
+                return journal.appendPayrollRun(run);
+            }
+        });
+        return replaced;
+    }
+
+    public PayrollRun getPayrollRun(YearMonth period) {
+        return payrollRuns.get(period);
+    }
+
+    // Returns the records replaced; a record superseded by a later one in the same call is included
+    private List<PayrollRecord> applyUpsertRecords(Collection<? extends PayrollRecord> records) {
+        synchronized (historyRewrites) {
+            Set<PayrollRecord> replaced = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<PayrollRecord> upserted = Collections.newSetFromMap(new IdentityHashMap<>());
+            // Records of this call that a later one in it replaces, so they are never stored
+            Set<PayrollRecord> supersededInCall = Collections.newSetFromMap(new IdentityHashMap<>());
+            // Replaced records that are in the date logs, i.e. not from this call
+            Map<LocalDate, Set<PayrollRecord>> removedByDate = new HashMap<>();
+
+            // Employee logs are short, so each is searched and rewritten as its record comes up
+            for (PayrollRecord record : records) {
+                int employeeId = record.getEmployeeId();
+                PayrollRecordLog log = recordsByEmployee.get(employeeId);
+                Set<PayrollRecord> superseded = null;
+                if (log != null) {
+                    YearMonth period = record.getPayPeriod();
+                    for (int i = 0, size = log.size(); i < size; i++) {
+                        PayrollRecord old = log.get(i);
+                        if (old.getPayPeriod().equals(period)) {
+                            if (superseded == null) {
+                                superseded = Collections.newSetFromMap(new IdentityHashMap<>());
+                            }
+                            superseded.add(old);
+                        }
+                    }
+                }
+                if (superseded == null) {
+                    appendTo(recordsByEmployee, employeeId, record);
+                } else {
+                    recordsByEmployee.put(employeeId, log.rewrite(superseded, Collections.singletonList(record)));
+                    for (PayrollRecord old : superseded) {
+                        replaced.add(old);
+                        if (upserted.contains(old)) {
+                            supersededInCall.add(old);
+                        } else {
+                            removedByDate.computeIfAbsent(old.getPayDate(),
+                                date -> Collections.newSetFromMap(new IdentityHashMap<>())).add(old);
+                        }
+                    }
+                }
+                upserted.add(record);
+            }
+
+            // Each pay date that loses records is rewritten once, with this call's records for it added
+            Map<LocalDate, List<PayrollRecord>> addedByDate = new HashMap<>();
+            for (PayrollRecord record : records) {
+                if (supersededInCall.contains(record)) {
+                    continue;
+                }
+                if (removedByDate.containsKey(record.getPayDate())) {
+                    addedByDate.computeIfAbsent(record.getPayDate(), date -> new ArrayList<>()).add(record);
+                } else {
+                    appendTo(recordsByDate, record.getPayDate(), record);
+                }
+            }
+            for (Map.Entry<LocalDate, Set<PayrollRecord>> entry : removedByDate.entrySet()) {
+                LocalDate payDate = entry.getKey();
+                List<PayrollRecord> added = addedByDate.getOrDefault(payDate, Collections.emptyList());
+                recordsByDate.put(payDate, recordsByDate.get(payDate).rewrite(entry.getValue(), added));
+            }
+            payrollRecordCount.addAndGet(records.size() - replaced.size());
+            return new ArrayList<>(replaced);
+        }
+    }
+
     public List<PayrollRecord> getAllPayrollRecords() {
-        // Return a copy sorted by most recent first
-        List<PayrollRecord> sorted = new ArrayList<>(payrollRecords);
-        sorted.sort((a, b) -> b.getPayDate().compareTo(a.getPayDate()));
-        return sorted;
+        // Most recent first; the date index is already ordered, so no sort is needed
+        List<PayrollRecord> records = new ArrayList<>(payrollRecordCount.get());
+        for (PayrollRecordLog log : recordsByDate.descendingMap().values()) {
+            log.copyTo(records);
+        }
+        return records;
     }
-    
+
+    // Cheap snapshot of the history for paging, e.g. by a table model
+    public PayrollHistoryView getPayrollHistory() {
+        return new PayrollHistoryView(recordsByDate.descendingMap().values().toArray(new PayrollRecordLog[0]));
+    }
+
+    // Records paid between the two dates, both inclusive
+    public List<PayrollRecord> getPayrollRecordsBetween(LocalDate from, LocalDate to) {
+        List<PayrollRecord> records = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return records;
+        }
+        for (PayrollRecordLog log : recordsByDate.subMap(from, true, to, true).descendingMap().values()) {
+            log.copyTo(records);
+        }
+        return records;
+    }
+
+    // The first count records of getAllPayrollRecords(), without copying the rest
+    public List<PayrollRecord> getLatestPayrollRecords(int count) {
+        List<PayrollRecord> records = new ArrayList<>(Math.max(0, Math.min(count, payrollRecordCount.get())));
+        for (PayrollRecordLog log : recordsByDate.descendingMap().values()) {
+            int size = log.size();
+            for (int i = 0; i < size && records.size() < count; i++) {
+                records.add(log.get(i));
+            }
+            if (records.size() >= count) {
+                break;
+            }
+        }
+        return records;
+    }
+
+    // All records for one employee, in the order they were saved
+    public List<PayrollRecord> getPayrollRecordsForEmployee(int employeeId) {
+        PayrollRecordLog log = recordsByEmployee.get(employeeId);
+        return log == null ? new ArrayList<>() : log.snapshot();
+    }
+
+    public List<PayrollRecord> getPayrollRecordsForDate(LocalDate payDate) {
+        PayrollRecordLog log = recordsByDate.get(payDate);
+        return log == null ? new ArrayList<>() : log.snapshot();
+    }
+
+    public List<PayrollRecord> getPayrollRecordsForPeriod(YearMonth period) {
+        return getPayrollRecordsBetween(period.atDay(1), period.atEndOfMonth());
+    }
+
+    public List<Employee> getEmployeesByPosition(String position) {
+        List<Employee> result = new ArrayList<>();
+        Set<Integer> ids = employeesByPosition.get(position);
+        if (ids == null) {
+            return result;
+        }
+        for (Integer id : ids) {
+            Employee employee = employees.get(id);
+            if (employee != null) {
+                result.add(employee);
+            }
+        }
+        return result;
+    }
+
+    public int getPayrollRecordCount() {
+        return payrollRecordCount.get();
+    }
+
     public void removeEmployee(int employeeId) {
-        employees.remove(employeeId);
+        write(() -> {
+            applyRemoveEmployee(employeeId);
+            return journal == null ? 0 : journal.appendRemoveEmployee(employeeId);
+        });
+    }
+
+    private void applyRemoveEmployee(int employeeId) {
+        Employee removed = employees.remove(employeeId);
+        if (removed != null) {
+            Set<Integer> ids = employeesByPosition.get(removed.getPosition());
+            if (ids != null) {
+                ids.remove(employeeId);
+            }
+            removed.setChangeListener(null);
+            employeeListeners.fire(employeeId);
+        }
+    }
+
+    @Override
+    public void addEmployeeListener(EmployeeListener listener) {
+        employeeListeners.add(listener);
+    }
+
+    @Override
+    public void removeEmployeeListener(EmployeeListener listener) {
+        employeeListeners.remove(listener);
+    }
+
+    // Applies a mutation and, for durable stores, waits until its journal entry is on disk
+    private void write(LongSupplier applyAndLog) {
+        if (journal == null) {
+            applyAndLog.getAsLong();
+            return;
+        }
+        long seq;
+        snapshotLock.readLock().lock();
+        try {
+            seq = applyAndLog.getAsLong();
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+        journal.awaitDurable(seq);
+
+        if (journal.getEntriesSinceSnapshot() >= snapshotInterval && snapshotting.compareAndSet(false, true)) {
+            try {
+                checkpoint();
+            } catch (IOException e) {
+                System.err.println("Error writing snapshot: " + e.getMessage());
+            } finally {
+                snapshotting.set(false);
+            }
+        }
+    }
+
+    // Writes a snapshot of all data and starts a fresh journal; no-op for in-memory stores
+    public void checkpoint() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        snapshotLock.writeLock().lock();
+        try {
+            journal.snapshot(out -> {
+                for (Employee employee : employees.values()) {
+                    out.addEmployee(employee.getEmployeeId(), employee.getName(), employee.getPosition(),
+                                    employee.getBaseSalary(), employee.getHoursWorked(), employee.getOvertimeHours());
+                }
+                out.nextEmployeeId(nextEmployeeId.get());
+                for (PayrollRun run : payrollRuns.values()) {
+                    out.payrollRun(run);
+                }
+                for (PayrollRecordLog log : recordsByDate.values()) {
+                    for (int i = 0, size = log.size(); i < size; i++) {
+                        out.saveRecord(log.get(i));
+                    }
+                }
+            });
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,214 @@
+package data;
+
+import model.Employee;
+import model.PayrollRecord;
+import model.PayrollRun;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps PayrollRollups up to date in front of another PayrollRepository.
+ *
+ * The rollups are built once from the store's history when this is created,
+ * then every record saved through it is added after the store has accepted
+ * it. Records are filed under their employee's position, which is looked up
+ * in an int-keyed index of employee positions rather than by reading the
+ * employee back from the store for each record; the store is only asked
+ * about employees the index has not seen. Records a pay-period run replaces
+ * are taken back out of the rollups.
+ *
+ * Like CachingPayrollRepository, only writes made through this repository
+ * are seen; do not share the store with another writer. Thread-safe.
+ */
+public class SummarizingPayrollRepository implements PayrollRepository {
+    private final PayrollRepository store;
+    private final PayrollRollups rollups = new PayrollRollups();
+
+    // Position of every employee this repository knows of, guarded by itself
+    private final IntIndex positionCodes = new IntIndex(1024);
+    private final NameDictionary positions = new NameDictionary();
+
+    public SummarizingPayrollRepository(PayrollRepository store) {
+        this.store = store;
+        for (Employee employee : store.getAllEmployees()) {
+            rememberPosition(employee.getEmployeeId(), employee.getPosition());
+        }
+        PayrollRecordSource history = store.getPayrollHistory();
+        for (int i = 0, size = history.size(); i < size; i++) {
+            PayrollRecord record = history.get(i);
+            rollups.add(record, positionOf(record.getEmployeeId()));
+        }
+    }
+
+    public PayrollRepository getStore() {
+        return store;
+    }
+
+    public PayrollRollups getRollups() {
+        return rollups;
+    }
+
+    private void rememberPosition(int employeeId, String position) {
+        synchronized (positionCodes) {
+            positionCodes.put(employeeId, positions.encode(position));
+        }
+    }
+
+    // Null for an employee removed before this repository was created
+    private String positionOf(int employeeId) {
+        synchronized (positionCodes) {
+            int code = positionCodes.get(employeeId, -1);
+            return code < 0 ? null : positions.decode(code);
+        }
+    }
+
+    private String lookUpPosition(int employeeId) {
+        String position = positionOf(employeeId);
+        if (position == null) {
+            Employee employee = store.getEmployee(employeeId);
+            if (employee != null) {
+                position = employee.getPosition();
+                rememberPosition(employeeId, position);
+            }
+        }
+        return position;
+    }
+
+    @Override
+    public int addEmployee(String name, String role, double baseSalary) {
+        int id = store.addEmployee(name, role, baseSalary);
+        rememberPosition(id, role);
+        return id;
+    }
+
+    @Override
+    public int[] addEmployees(String[] names, String[] roles, double[] baseSalaries, int count) {
+        int[] ids = store.addEmployees(names, roles, baseSalaries, count);
+        for (int i = 0; i < ids.length; i++) {
+            rememberPosition(ids[i], roles[i]);
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Employee> getAllEmployees() {
+        return store.getAllEmployees();
+    }
+
+    @Override
+    public Employee getEmployee(int id) {
+        return store.getEmployee(id);
+    }
+
+    @Override
+    public List<Employee> getEmployeesByPosition(String position) {
+        return store.getEmployeesByPosition(position);
+    }
+
+    @Override
+    public void updateEmployeeHours(int employeeId, double hoursWorked, double overtimeHours) {
+        store.updateEmployeeHours(employeeId, hoursWorked, overtimeHours);
+    }
+
+    @Override
+    public int updateHoursBatch(int[] employeeIds, double[] hoursWorked, double[] overtimeHours, int count) {
+        return store.updateHoursBatch(employeeIds, hoursWorked, overtimeHours, count);
+    }
+
+    // The position stays known: the employee's records keep counting under it
+    @Override
+    public void removeEmployee(int employeeId) {
+        store.removeEmployee(employeeId);
+    }
+
+    @Override
+    public void savePayrollRecord(PayrollRecord record) {
+        store.savePayrollRecord(record);
+        rollups.add(record, lookUpPosition(record.getEmployeeId()));
+    }
+
+    @Override
+    public int savePayrollRecords(Collection<? extends PayrollRecord> records) {
+        int saved = store.savePayrollRecords(records);
+        for (PayrollRecord record : records) {
+            rollups.add(record, lookUpPosition(record.getEmployeeId()));
+        }
+        return saved;
+    }
+
+    @Override
+    public List<PayrollRecord> commitPayrollRun(PayrollRun run, Collection<? extends PayrollRecord> records) {
+        List<PayrollRecord> replaced = store.commitPayrollRun(run, records);
+        for (PayrollRecord record : records) {
+            rollups.add(record, lookUpPosition(record.getEmployeeId()));
+        }
+        for (PayrollRecord record : replaced) {
+            rollups.remove(record, lookUpPosition(record.getEmployeeId()));
+        }
+        return replaced;
+    }
+
+    @Override
+    public PayrollRun getPayrollRun(YearMonth period) {
+        return store.getPayrollRun(period);
+    }
+
+    @Override
+    public List<PayrollRecord> getAllPayrollRecords() {
+        return store.getAllPayrollRecords();
+    }
+
+    @Override
+    public PayrollRecordSource getPayrollHistory() {
+        return store.getPayrollHistory();
+    }
+
+    @Override
+    public List<PayrollRecord> getPayrollRecordsBetween(LocalDate from, LocalDate to) {
+        return store.getPayrollRecordsBetween(from, to);
+    }
+
+    @Override
+    public List<PayrollRecord> getLatestPayrollRecords(int count) {
+        return store.getLatestPayrollRecords(count);
+    }
+
+    @Override
+    public List<PayrollRecord> getPayrollRecordsForEmployee(int employeeId) {
+        return store.getPayrollRecordsForEmployee(employeeId);
+    }
+
+    @Override
+    public List<PayrollRecord> getPayrollRecordsForDate(LocalDate payDate) {
+        return store.getPayrollRecordsForDate(payDate);
+    }
+
+    @Override
+    public List<PayrollRecord> getPayrollRecordsForPeriod(YearMonth period) {
+        return store.getPayrollRecordsForPeriod(period);
+    }
+
+    @Override
+    public int getPayrollRecordCount() {
+        return store.getPayrollRecordCount();
+    }
+
+    @Override
+    public void addEmployeeListener(EmployeeListener listener) {
+        store.addEmployeeListener(listener);
+    }
+
+    @Override
+    public void removeEmployeeListener(EmployeeListener listener) {
+        store.removeEmployeeListener(listener);
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+}
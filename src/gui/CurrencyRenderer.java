@@ -0,0 +1,29 @@
+package gui;
+
+import model.Money;
+
+import javax.swing.SwingConstants;
+import javax.swing.table.DefaultTableCellRenderer;
+
+/**
+ * Formats money cells as "$1234.56" when they are painted. One instance is
+ * shared by all money columns, so only visible cells are ever formatted.
+ */
+public class CurrencyRenderer extends DefaultTableCellRenderer {
+    // Renderers are only used on the EDT, so sharing the buffer is safe
+    private final StringBuilder text = new StringBuilder(16);
+
+    public CurrencyRenderer() {
+        setHorizontalAlignment(SwingConstants.RIGHT);
+    }
+
+    @Override
+    protected void setValue(Object value) {
+        if (!(value instanceof Number)) {
+            setText("");
+            return;
+        }
+        text.setLength(0);
+        setText(Money.appendTo(text, Money.toCents(((Number) value).doubleValue())).toString());
+    }
+}
@@ -0,0 +1,79 @@
+package gui;
+
+import model.Employee;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.List;
+
+/**
+ * Table model over a snapshot of employee references. Cells read the live
+ * Employee objects, so hours changes show up on the next repaint without a
+ * reload; reload only when employees are added or removed.
+ */
+public class EmployeeTableModel extends AbstractTableModel {
+    private static final String[] COLUMN_NAMES = {
+        "ID", "Name", "Role", "Base Salary", "Hours Worked", "Overtime Hours"
+    };
+    private static final Class<?>[] COLUMN_CLASSES = {
+        Integer.class, String.class, String.class, Double.class, Double.class, Double.class
+    };
+
+    private Employee[] employees = new Employee[0];
+
+    public void setEmployees(List<Employee> newEmployees) {
+        Employee[] old = employees;
+        employees = newEmployees.toArray(new Employee[0]);
+        if (employees.length > old.length && isPrefix(old, employees)) {
+            fireTableRowsInserted(old.length, employees.length - 1);
+        } else {
+            fireTableDataChanged();
+        }
+    }
+
+    private static boolean isPrefix(Employee[] prefix, Employee[] array) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (prefix[i] != array[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Employee getEmployeeAt(int row) {
+        return employees[row];
+    }
+
+    @Override
+    public int getRowCount() {
+        return employees.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Employee employee = employees[row];
+        switch (column) {
+            case 0: return employee.getEmployeeId();
+            case 1: return employee.getName();
+            case 2: return employee.getPosition();
+            case 3: return employee.getBaseSalary();
+            case 4: return employee.getHoursWorked();
+            case 5: return employee.getOvertimeHours();
+            default: throw new IllegalArgumentException("Unknown column: " + column);
+        }
+    }
+}
@@ -1,20 +1,75 @@
 package gui;
 
 import model.Employee;
-import model.PayrollRecord;
+import model.Money;
+import model.PayPeriod;
+import data.CsvImporter;
+import data.CsvImporter.ImportResult;
+import data.PayrollExporter;
+import data.PayrollExporter.Format;
+import data.CachingPayrollRepository;
+import data.ColumnarDataManager;
+import data.JdbcDataManager;
+import data.MeteredPayrollRepository;
+import data.PayrollArchive;
+import data.PayStubTemplate;
+import data.PayStubWriter;
+import data.PayrollRecordSource;
+import data.PayrollRepository;
+import data.PayrollRollups;
 import data.SimpleDataManager;
+import data.SummarizingPayrollRepository;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import utils.DraftPayrollRun;
+import utils.PayRules;
 import utils.PayrollCalculator;
+import utils.PayrollPeriodRunner;
+import utils.PayrollPeriodRunner.PeriodRunResult;
+import utils.PayrollRunEngine;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.TableCellRenderer;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.List;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 public class PayrollGUI extends JFrame {
-    private SimpleDataManager dataManager;
+    // Startup phases are timed from class load; -Dpayroll.startupTiming=true prints them
+    private static final long STARTED = System.nanoTime();
+    private static final boolean LOG_STARTUP = Boolean.getBoolean("payroll.startupTiming");
+    
+    private static final int ADD_EMPLOYEE_TAB = 0;
+    private static final int VIEW_EMPLOYEES_TAB = 1;
+    private static final int PAYROLL_TAB = 2;
+    
+    // Refreshes are timed from request to the table showing the data, queueing included
+    private static final LatencyHistogram EMPLOYEE_REFRESH = Metrics.histogram("gui.refreshEmployees");
+    private static final LatencyHistogram EMPLOYEE_LIST_REFRESH = Metrics.histogram("gui.refreshEmployeeList");
+    private static final LatencyHistogram PAYROLL_REFRESH = Metrics.histogram("gui.refreshPayrollRecords");
+    
+    // Null until the store has been opened in the background
+    private PayrollRepository dataManager;
+    private PayrollRollups rollups;
     private JTabbedPane tabbedPane;
+    private JLabel statusLabel;
+    // Tabs are built on first selection; until then they hold a placeholder label
+    private final boolean[] tabBuilt = new boolean[3];
+    // Background tasks queued but not yet done, counted on the EDT
+    private int pendingTasks;
+    private boolean startupLogged;
     
     // Add Employee Panel Components
     private JTextField nameField;
@@ -23,21 +78,48 @@ public class PayrollGUI extends JFrame {
     
     // View Employees Panel Components
     private JTable employeeTable;
-    private DefaultTableModel employeeTableModel;
+    private EmployeeTableModel employeeTableModel;
     
     // Payroll Panel Components
     private JTable payrollTable;
-    private DefaultTableModel payrollTableModel;
+    private PayrollTableModel payrollTableModel;
+    private JLabel payrollTotalsLabel;
+    private JLabel draftTotalsLabel;
     private JComboBox<Employee> employeeComboBox;
     private JTextField hoursField;
     private JTextField overtimeField;
+    private JButton generateButton;
+    private JButton runAllButton;
+    private JButton cancelRunButton;
+    private JProgressBar runProgressBar;
+    
+    // Background work: loads run one at a time so results reach the tables in order
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "payroll-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final PayrollRunEngine runEngine = new PayrollRunEngine();
+    private PayrollRunWorker runWorker;
+    // This month's unsaved run, kept current from employee changes; null until built
+    private DraftPayrollRun draftRun;
+    
+    // One shared renderer formats every money column lazily
+    private final TableCellRenderer currencyRenderer = new CurrencyRenderer();
     
     public PayrollGUI() {
-        dataManager = new SimpleDataManager();
+        this(PayrollGUI::createDataManager);
+    }
+    
+    public PayrollGUI(PayrollRepository dataManager) {
+        this(() -> dataManager);
+    }
+    
+    // The window is ready to show at once: the store is opened and every tab's
+    // data is read off the EDT, and the tabs are only built when first selected
+    private PayrollGUI(Callable<PayrollRepository> openStore) {
         initializeGUI();
-        loadEmployeeData();
-        loadPayrollData();
-        loadEmployeeComboBox();
+        runInBackground(() -> new SummarizingPayrollRepository(openStore.call()), this::storeOpened, this::storeFailed);
     }
     
     private void initializeGUI() {
@@ -49,19 +131,107 @@ public class PayrollGUI extends JFrame {
         tabbedPane = new JTabbedPane();
         
         // Create tabs
-        tabbedPane.addTab("Add Employee", createAddEmployeePanel());
-        tabbedPane.addTab("View Employees", createViewEmployeesPanel());
-        tabbedPane.addTab("Payroll Management", createPayrollPanel());
+        tabbedPane.addTab("Add Employee", createPlaceholder());
+        tabbedPane.addTab("View Employees", createPlaceholder());
+        tabbedPane.addTab("Payroll Management", createPlaceholder());
+        tabbedPane.addChangeListener(e -> buildSelectedTab());
         
         add(tabbedPane);
         
+        statusLabel = new JLabel(" ");
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(2, 6, 2, 6));
+        add(statusLabel, BorderLayout.SOUTH);
+        
         // Add window closing event
         addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowOpened(java.awt.event.WindowEvent windowEvent) {
+                logStartup("window shown");
+            }
+            
             @Override
             public void windowClosing(java.awt.event.WindowEvent windowEvent) {
+                if (dataManager != null) {
+                    try {
+                        dataManager.close();
+                    } catch (java.io.IOException e) {
+                        System.err.println("Error closing data store: " + e.getMessage());
+                    }
+                }
                 System.exit(0);
             }
         });
+    }
+    
+    private static JLabel createPlaceholder() {
+        return new JLabel("Loading...", JLabel.CENTER);
+    }
+    
+    private void storeOpened(SummarizingPayrollRepository store) {
+        rollups = store.getRollups();
+        dataManager = MeteredPayrollRepository.wrap(store);
+        logStartup("data store opened");
+        buildSelectedTab();
+    }
+    
+    private void storeFailed(Throwable error) {
+        for (int tab = 0; tab < tabbedPane.getTabCount(); tab++) {
+            ((JLabel) tabbedPane.getComponentAt(tab)).setText("Could not open the data store: " + error.getMessage());
+        }
+        JOptionPane.showMessageDialog(this, "Could not open the data store: " + error.getMessage());
+    }
+    
+    // Replaces the selected tab's placeholder with the real panel and starts loading its data
+    private void buildSelectedTab() {
+        int tab = tabbedPane.getSelectedIndex();
+        if (dataManager == null || tab < 0 || tabBuilt[tab]) {
+            return;
+        }
+        tabBuilt[tab] = true;
+        JPanel panel;
+        switch (tab) {
+            case ADD_EMPLOYEE_TAB:
+                panel = createAddEmployeePanel();
+                break;
+            case VIEW_EMPLOYEES_TAB:
+                panel = createViewEmployeesPanel();
+                loadEmployeeData();
+                break;
+            case PAYROLL_TAB:
+                panel = createPayrollPanel();
+                loadEmployeeComboBox();
+                loadPayrollData();
+                loadDraftRun();
+                break;
+            default:
+                throw new IllegalStateException("Unknown tab: " + tab);
+        }
+        tabbedPane.setComponentAt(tab, panel);
+        logStartup("\"" + tabbedPane.getTitleAt(tab) + "\" tab built");
+    }
+    
+    // Database when -Dpayroll.jdbcUrl is set (e.g. jdbc:sqlite:payroll.db), journaled
+    // files when -Dpayroll.dataDir is set, otherwise in-memory sample data, kept in
+    // compact columns with -Dpayroll.columnar=true
+    private static PayrollRepository createDataManager() {
+        String jdbcUrl = System.getProperty("payroll.jdbcUrl");
+        if (jdbcUrl != null) {
+            try {
+                // Every read is a query, so keep employees in memory in front of it
+                return new CachingPayrollRepository(new JdbcDataManager(jdbcUrl));
+            } catch (java.sql.SQLException e) {
+                throw new data.DataAccessException("Cannot open database " + jdbcUrl, e);
+            }
+        }
+        String dataDir = System.getProperty("payroll.dataDir");
+        if (dataDir == null) {
+            return Boolean.getBoolean("payroll.columnar") ? new ColumnarDataManager() : new SimpleDataManager();
+        }
+        try {
+            return new SimpleDataManager(java.nio.file.Paths.get(dataDir));
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException("Cannot open data directory " + dataDir, e);
+        }
     }    
 
     private JPanel createAddEmployeePanel() {
@@ -114,25 +284,23 @@ public class PayrollGUI extends JFrame {
         titleLabel.setBorder(BorderFactory.createEmptyBorder(10, 0, 10, 0));
         panel.add(titleLabel, BorderLayout.NORTH);
         
-        // Table
-        String[] columnNames = {"ID", "Name", "Role", "Base Salary", "Hours Worked", "Overtime Hours"};
-        employeeTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make table read-only
-            }
-        };
+        // Table (read-only, cells are read from the employees on demand)
+        employeeTableModel = new EmployeeTableModel();
         employeeTable = new JTable(employeeTableModel);
         employeeTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        employeeTable.getColumnModel().getColumn(3).setCellRenderer(currencyRenderer);
         
         JScrollPane scrollPane = new JScrollPane(employeeTable);
         panel.add(scrollPane, BorderLayout.CENTER);
         
-        // Refresh button
+        // Refresh and import buttons
         JButton refreshButton = new JButton("Refresh");
         refreshButton.addActionListener(e -> loadEmployeeData());
+        JButton importButton = new JButton("Import Employees from CSV...");
+        importButton.addActionListener(e -> importCsv(false));
         JPanel buttonPanel = new JPanel();
         buttonPanel.add(refreshButton);
+        buttonPanel.add(importButton);
         panel.add(buttonPanel, BorderLayout.SOUTH);
         
         return panel;
@@ -188,7 +356,7 @@ public class PayrollGUI extends JFrame {
         
         // Buttons
         gbc.gridy = 6;
-        JButton generateButton = new JButton("Generate Payroll");
+        generateButton = new JButton("Generate Payroll");
         generateButton.addActionListener(new GeneratePayrollListener());
         panel.add(generateButton, gbc);
         
@@ -197,6 +365,34 @@ public class PayrollGUI extends JFrame {
         refreshEmployeesButton.addActionListener(e -> loadEmployeeComboBox());
         panel.add(refreshEmployeesButton, gbc);
         
+        gbc.gridy = 8;
+        JButton importHoursButton = new JButton("Import Hours from CSV...");
+        importHoursButton.addActionListener(e -> importCsv(true));
+        panel.add(importHoursButton, gbc);
+        
+        // Bulk run for all employees
+        gbc.gridy = 9;
+        runAllButton = new JButton("Run Payroll for All");
+        runAllButton.addActionListener(e -> startPayrollRun());
+        panel.add(runAllButton, gbc);
+        
+        gbc.gridy = 10;
+        runProgressBar = new JProgressBar(0, 100);
+        runProgressBar.setStringPainted(true);
+        runProgressBar.setVisible(false);
+        panel.add(runProgressBar, gbc);
+        
+        gbc.gridy = 11;
+        cancelRunButton = new JButton("Cancel Run");
+        cancelRunButton.setEnabled(false);
+        cancelRunButton.addActionListener(e -> {
+            // The run stops at its next check; chunks already saved stay saved
+            if (runWorker != null && runWorker.cancelRun()) {
+                cancelRunButton.setEnabled(false);
+            }
+        });
+        panel.add(cancelRunButton, gbc);
+        
         return panel;
     }
     
@@ -204,71 +400,325 @@ public class PayrollGUI extends JFrame {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBorder(BorderFactory.createTitledBorder("Payroll Records"));
         
-        String[] columnNames = {"Employee ID", "Name", "Hours", "Overtime", "Gross Pay", "Tax", "Net Pay", "Date"};
-        payrollTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Empty until loadPayrollData() has read the history in the background
+        payrollTableModel = new PayrollTableModel(PayrollRecordSource.of(Collections.emptyList()));
         payrollTable = new JTable(payrollTableModel);
+        for (int column = 4; column <= 6; column++) {
+            payrollTable.getColumnModel().getColumn(column).setCellRenderer(currencyRenderer);
+        }
+        // Fixed row height lets JTable locate visible rows without measuring every row
+        payrollTable.setRowHeight(payrollTable.getRowHeight());
         
         JScrollPane scrollPane = new JScrollPane(payrollTable);
         panel.add(scrollPane, BorderLayout.CENTER);
         
         JButton refreshButton = new JButton("Refresh Payroll Records");
         refreshButton.addActionListener(e -> loadPayrollData());
+        JButton exportButton = new JButton("Export...");
+        exportButton.addActionListener(e -> exportPayroll());
+        JButton stubsButton = new JButton("Pay Stubs...");
+        stubsButton.addActionListener(e -> writePayStubs());
+        JButton archiveButton = new JButton("Archive...");
+        archiveButton.addActionListener(e -> archivePayroll());
+        JButton openArchiveButton = new JButton("Open Archive...");
+        openArchiveButton.addActionListener(e -> openArchive());
         JPanel buttonPanel = new JPanel();
         buttonPanel.add(refreshButton);
-        panel.add(buttonPanel, BorderLayout.SOUTH);
+        buttonPanel.add(exportButton);
+        buttonPanel.add(stubsButton);
+        buttonPanel.add(archiveButton);
+        buttonPanel.add(openArchiveButton);
+        
+        payrollTotalsLabel = new JLabel(" ", JLabel.CENTER);
+        draftTotalsLabel = new JLabel(" ", JLabel.CENTER);
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.add(payrollTotalsLabel, BorderLayout.NORTH);
+        southPanel.add(draftTotalsLabel, BorderLayout.CENTER);
+        southPanel.add(buttonPanel, BorderLayout.SOUTH);
+        panel.add(southPanel, BorderLayout.SOUTH);
         
         return panel;
     }
     
+    // Loads for a tab that has not been built yet are skipped; building it loads its data
     private void loadEmployeeData() {
-        employeeTableModel.setRowCount(0);
-        List<Employee> employees = dataManager.getAllEmployees();
-        
-        for (Employee emp : employees) {
-            Object[] row = {
-                emp.getEmployeeId(),
-                emp.getName(),
-                emp.getPosition(),
-                String.format("$%.2f", emp.getBaseSalary()),
-                emp.getHoursWorked(),
-                emp.getOvertimeHours()
-            };
-            employeeTableModel.addRow(row);
+        if (employeeTableModel != null) {
+            long start = Metrics.startTime();
+            runInBackground(dataManager::getAllEmployees, employees -> {
+                employeeTableModel.setEmployees(employees);
+                EMPLOYEE_REFRESH.record(start);
+            });
         }
     }
     
     private void loadEmployeeComboBox() {
-        employeeComboBox.removeAllItems();
-        List<Employee> employees = dataManager.getAllEmployees();
-        
-        for (Employee emp : employees) {
-            employeeComboBox.addItem(emp);
+        if (employeeComboBox != null) {
+            long start = Metrics.startTime();
+            runInBackground(() -> dataManager.getAllEmployees().toArray(new Employee[0]), employees -> {
+                employeeComboBox.setModel(new DefaultComboBoxModel<>(employees));
+                EMPLOYEE_LIST_REFRESH.record(start);
+            });
         }
     }
     
     private void loadPayrollData() {
-        payrollTableModel.setRowCount(0);
-        List<PayrollRecord> records = dataManager.getAllPayrollRecords();
-        
-        for (PayrollRecord record : records) {
-            Object[] row = {
-                record.getEmployeeId(),
-                record.getEmployeeName(),
-                record.getHoursWorked(),
-                record.getOvertimeHours(),
-                String.format("$%.2f", record.getGrossPay()),
-                String.format("$%.2f", record.getTax()),
-                String.format("$%.2f", record.getNetPay()),
-                record.getPayDate()
-            };
-            payrollTableModel.addRow(row);
+        if (payrollTableModel != null) {
+            // Only rows added since the last load are announced to the table
+            long start = Metrics.startTime();
+            runInBackground(dataManager::getPayrollHistory, history -> {
+                payrollTableModel.setSource(history);
+                showPayrollTotals();
+                PAYROLL_REFRESH.record(start);
+            });
         }
     }  
+    
+    // Read from the rollups, so this costs the same for any size of history
+    private void showPayrollTotals() {
+        YearMonth period = YearMonth.now();
+        PayrollRollups.Totals month = rollups.getPeriodTotals(period);
+        PayrollRollups.Totals all = rollups.getTotals();
+        payrollTotalsLabel.setText(String.format(
+            "%s: %d records, gross %s, tax %s, net %s    All time: %d records, net %s",
+            period, month.getCount(), Money.format(month.getGrossPayCents()), Money.format(month.getTaxCents()),
+            Money.format(month.getNetPayCents()), all.getCount(), Money.format(all.getNetPayCents())));
+        showDraftTotals();
+    }
+    
+    // Calculates every employee once; later reads recalculate only the employees changed since
+    private void loadDraftRun() {
+        runInBackground(() -> new DraftPayrollRun(dataManager, PayPeriod.of(YearMonth.now())), draft -> {
+            draftRun = draft;
+            showDraftTotals();
+        });
+    }
+    
+    // What this month's run would pay with the hours as they are now
+    private void showDraftTotals() {
+        if (draftRun != null) {
+            runInBackground(draftRun::getTotals, totals -> draftTotalsLabel.setText(String.format(
+                "Draft %s at current hours: %d employees, gross %s, tax %s, net %s",
+                draftRun.getPeriod().getMonth(), totals.getEmployeeCount(), Money.format(totals.getGrossPayCents()),
+                Money.format(totals.getTaxCents()), Money.format(totals.getNetPayCents()))));
+        }
+    }
+    
+    // Streams an employee or hours CSV into the data manager off the EDT
+    private void importCsv(boolean hours) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        CsvImporter importer = new CsvImporter(dataManager);
+        runInBackground(() -> hours ? importer.importHours(file) : importer.importEmployees(file),
+            result -> {
+                showImportResult(result);
+                loadEmployeeData();
+                loadEmployeeComboBox();
+                showDraftTotals();
+            });
+    }
+    
+    // Writes the whole payroll history in the format of the chosen file type
+    private void exportPayroll() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setAcceptAllFileFilterUsed(false);
+        FileNameExtensionFilter[] filters = {
+            new FileNameExtensionFilter("CSV (*.csv)", Format.CSV.getExtension()),
+            new FileNameExtensionFilter("JSON Lines (*.jsonl)", Format.JSON_LINES.getExtension()),
+            new FileNameExtensionFilter("Bank transfer file (*.txt)", Format.BANK.getExtension())
+        };
+        for (FileNameExtensionFilter filter : filters) {
+            chooser.addChoosableFileFilter(filter);
+        }
+        chooser.setFileFilter(filters[0]);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        // Filters are listed in Format order
+        Format format = Format.values()[Arrays.asList(filters).indexOf(chooser.getFileFilter())];
+        String name = chooser.getSelectedFile().getName();
+        Path file = name.contains(".") ? chooser.getSelectedFile().toPath()
+                                       : chooser.getSelectedFile().toPath().resolveSibling(name + "." + format.getExtension());
+        runInBackground(() -> new PayrollExporter(format).export(dataManager.getPayrollHistory(), file),
+            count -> JOptionPane.showMessageDialog(this, "Exported " + count + " payroll records to " + file));
+    }
+    
+    // Writes this month's stubs, with year-to-date totals from the rollups, to one zip
+    private void writePayStubs() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setAcceptAllFileFilterUsed(false);
+        FileNameExtensionFilter htmlFilter = new FileNameExtensionFilter("HTML pay stubs (*.zip)", "zip");
+        chooser.addChoosableFileFilter(htmlFilter);
+        chooser.addChoosableFileFilter(new FileNameExtensionFilter("Text pay stubs (*.zip)", "zip"));
+        chooser.setFileFilter(htmlFilter);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        PayStubTemplate.Format format = chooser.getFileFilter() == htmlFilter
+                                        ? PayStubTemplate.Format.HTML : PayStubTemplate.Format.TEXT;
+        String name = chooser.getSelectedFile().getName();
+        Path file = name.contains(".") ? chooser.getSelectedFile().toPath()
+                                       : chooser.getSelectedFile().toPath().resolveSibling(name + ".zip");
+        YearMonth period = YearMonth.now();
+        PayStubWriter writer = new PayStubWriter(PayStubTemplate.defaultTemplate(format), rollups);
+        runInBackground(() -> writer.writeZip(dataManager.getPayrollRecordsForPeriod(period), file),
+            count -> JOptionPane.showMessageDialog(this, "Wrote " + count + " pay stubs for " + period + " to " + file));
+    }
+    
+    // Writes the whole payroll history to an archive file that opens without loading it
+    private void archivePayroll() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Payroll archives (*.payarc)", "payarc"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        String name = chooser.getSelectedFile().getName();
+        Path file = name.contains(".") ? chooser.getSelectedFile().toPath()
+                                       : chooser.getSelectedFile().toPath().resolveSibling(name + ".payarc");
+        runInBackground(() -> PayrollArchive.write(file, dataManager.getPayrollHistory()),
+            count -> JOptionPane.showMessageDialog(this, "Archived " + count + " payroll records to " + file));
+    }
+    
+    // Shows an archive in the records table; Refresh goes back to the store
+    private void openArchive() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Payroll archives (*.payarc)", "payarc"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        runInBackground(() -> {
+            PayrollArchive archive = PayrollArchive.open(file);
+            // The totals scan every row, so sum them here rather than on the EDT
+            return Map.entry(archive, String.format("Archive %s: %d records, gross %s, tax %s, net %s",
+                file.getFileName(), archive.size(), Money.format(archive.getTotalGrossPayCents()),
+                Money.format(archive.getTotalTaxCents()), Money.format(archive.getTotalNetPayCents())));
+        }, opened -> {
+            payrollTableModel.setSource(opened.getKey());
+            payrollTotalsLabel.setText(opened.getValue());
+        });
+    }
+    
+    private void showImportResult(ImportResult result) {
+        StringBuilder message = new StringBuilder();
+        message.append(String.format("Imported %d of %d rows in %.1f ms", result.getRowsImported(),
+                                     result.getRowsRead(), result.getElapsedMillis()));
+        if (result.getErrorCount() > 0) {
+            message.append(String.format("\n%d rows had errors:", result.getErrorCount()));
+            // Keep the dialog readable; the count above covers the rest
+            for (int i = 0; i < Math.min(10, result.getErrors().size()); i++) {
+                message.append('\n').append(result.getErrors().get(i));
+            }
+        }
+        JOptionPane.showMessageDialog(this, message.toString());
+    }
+    
+    // Runs task off the EDT, then hands its result to onDone on the EDT
+    private <T> void runInBackground(Callable<T> task, Consumer<T> onDone) {
+        runInBackground(task, onDone,
+            error -> JOptionPane.showMessageDialog(this, "Error: " + error.getMessage()));
+    }
+    
+    private <T> void runInBackground(Callable<T> task, Consumer<T> onDone, Consumer<Throwable> onError) {
+        pendingTasks++;
+        updateStatus();
+        loadExecutor.execute(new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return task.call();
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    onDone.accept(get());
+                } catch (InterruptedException | CancellationException ex) {
+                    // Nothing to show
+                } catch (ExecutionException ex) {
+                    onError.accept(ex.getCause());
+                } finally {
+                    pendingTasks--;
+                    updateStatus();
+                }
+            }
+        });
+    }
+    
+    private void updateStatus() {
+        if (dataManager == null) {
+            statusLabel.setText(pendingTasks > 0 ? "Opening data store..." : "No data store");
+        } else if (pendingTasks > 0) {
+            statusLabel.setText("Loading...");
+        } else {
+            statusLabel.setText("Ready");
+            if (!startupLogged) {
+                startupLogged = true;
+                logStartup("initial data loaded");
+            }
+        }
+    }
+    
+    private static void logStartup(String event) {
+        if (LOG_STARTUP) {
+            System.out.printf("Startup: %s at %.1f ms%n", event, (System.nanoTime() - STARTED) / 1_000_000.0);
+        }
+    }
+    
+    private void startPayrollRun() {
+        if (runWorker != null && !runWorker.isDone()) {
+            return;
+        }
+        runWorker = new PayrollRunWorker(dataManager, runEngine, PayPeriod.of(YearMonth.now())) {
+            @Override
+            protected void done() {
+                finishPayrollRun(this);
+            }
+        };
+        runWorker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                runProgressBar.setValue((Integer) evt.getNewValue());
+            }
+        });
+        runProgressBar.setValue(0);
+        runProgressBar.setVisible(true);
+        runAllButton.setEnabled(false);
+        generateButton.setEnabled(false);
+        cancelRunButton.setEnabled(true);
+        runWorker.execute();
+    }
+    
+    private void finishPayrollRun(PayrollRunWorker worker) {
+        runProgressBar.setVisible(false);
+        runAllButton.setEnabled(true);
+        generateButton.setEnabled(true);
+        cancelRunButton.setEnabled(false);
+        
+        YearMonth month = worker.getPeriod().getMonth();
+        try {
+            PeriodRunResult result = worker.get();
+            // Read from the rollups, which include chunks saved before a resume
+            PayrollRollups.Totals totals = rollups.getPeriodTotals(month);
+            JOptionPane.showMessageDialog(this, String.format(
+                "Payroll for %s generated for %d employees in %.1f ms%s\n"
+                + "%d earlier records replaced\nTotal Net Pay: %s",
+                month, result.getRecordsCalculated(), result.getElapsedMillis(),
+                result.isResumed() ? " (resumed after employee " + result.getResumedAfterEmployeeId() + ")" : "",
+                result.getRecordsReplaced(), Money.format(totals.getNetPayCents())));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            JOptionPane.showMessageDialog(this, cause instanceof CancellationException
+                ? "Payroll run for " + month + " cancelled. Records already saved are kept;"
+                  + " running it again carries on after them."
+                : "Error running payroll: " + cause.getMessage());
+        }
+        loadEmployeeData();
+        loadPayrollData();
+    }
   
     private class AddEmployeeListener implements ActionListener {
         @Override
@@ -288,23 +738,24 @@ public class PayrollGUI extends JFrame {
                     return;
                 }
                 
-                int employeeId = dataManager.addEmployee(name, role, salary);
-                
-                if (employeeId > 0) {
-                    JOptionPane.showMessageDialog(PayrollGUI.this, 
-                        "Employee added successfully! ID: " + employeeId);
-                    
-                    // Clear fields
-                    nameField.setText("");
-                    salaryField.setText("");
-                    roleComboBox.setSelectedIndex(0);
-                    
-                    // Refresh data
-                    loadEmployeeData();
-                    loadEmployeeComboBox();
-                } else {
-                    JOptionPane.showMessageDialog(PayrollGUI.this, "Error adding employee.");
-                }
+                // A database or journaled store writes to disk, so add off the EDT
+                runInBackground(() -> dataManager.addEmployee(name, role, salary), employeeId -> {
+                    if (employeeId > 0) {
+                        JOptionPane.showMessageDialog(PayrollGUI.this, 
+                            "Employee added successfully! ID: " + employeeId);
+                        
+                        // Clear fields
+                        nameField.setText("");
+                        salaryField.setText("");
+                        roleComboBox.setSelectedIndex(0);
+                        
+                        // Refresh data
+                        loadEmployeeData();
+                        loadEmployeeComboBox();
+                    } else {
+                        JOptionPane.showMessageDialog(PayrollGUI.this, "Error adding employee.");
+                    }
+                });
                 
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(PayrollGUI.this, "Please enter a valid salary amount.");
@@ -330,31 +781,31 @@ public class PayrollGUI extends JFrame {
                     return;
                 }
                 
-                // Update employee hours in data manager
-                dataManager.updateEmployeeHours(selectedEmployee.getEmployeeId(), hours, overtime);
-                
-                // Update employee object
-                selectedEmployee.setHoursWorked(hours);
-                selectedEmployee.setOvertimeHours(overtime);
-                
-                // Generate payroll record
-                PayrollRecord record = PayrollCalculator.generatePayrollRecord(selectedEmployee);
-                
-                // Save to data manager
-                dataManager.savePayrollRecord(record);
-                
-                // Show success message
-                JOptionPane.showMessageDialog(PayrollGUI.this, 
-                    String.format("Payroll generated for %s\nNet Pay: $%.2f", 
-                    selectedEmployee.getName(), record.getNetPay()));
-                
-                // Clear fields
-                hoursField.setText("");
-                overtimeField.setText("");
-                
-                // Refresh data
-                loadEmployeeData();
-                loadPayrollData();
+                // Calculate and save off the EDT, then report back on it
+                runInBackground(() -> {
+                    // Update employee hours in data manager
+                    dataManager.updateEmployeeHours(selectedEmployee.getEmployeeId(), hours, overtime);
+                    
+                    // Update employee object
+                    selectedEmployee.setHoursWorked(hours);
+                    selectedEmployee.setOvertimeHours(overtime);
+                    
+                    // Replaces any record the employee already has this month
+                    return PayrollPeriodRunner.runEmployee(dataManager, YearMonth.now(), selectedEmployee);
+                }, record -> {
+                    // Show success message
+                    JOptionPane.showMessageDialog(PayrollGUI.this, 
+                        String.format("Payroll generated for %s\nNet Pay: %s", 
+                        selectedEmployee.getName(), Money.format(record.getNetPayCents())));
+                    
+                    // Clear fields
+                    hoursField.setText("");
+                    overtimeField.setText("");
+                    
+                    // Refresh data
+                    loadEmployeeData();
+                    loadPayrollData();
+                });
                 
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(PayrollGUI.this, "Please enter valid numbers for hours.");
@@ -363,6 +814,17 @@ public class PayrollGUI extends JFrame {
     }
     
     public static void main(String[] args) {
+        // Optional pay rules file, e.g. -Dpayroll.rules=config/pay-rules.properties
+        String rulesFile = System.getProperty("payroll.rules");
+        if (rulesFile != null) {
+            try {
+                PayrollCalculator.setRules(PayRules.load(java.nio.file.Paths.get(rulesFile),
+                                                         System.getProperty("payroll.region")));
+            } catch (java.io.IOException e) {
+                System.err.println("Error loading pay rules: " + e.getMessage());
+            }
+        }
+        
         SwingUtilities.invokeLater(new Runnable() {
             public void run() {
                 try {
@@ -0,0 +1,52 @@
+package gui;
+
+import data.PayrollRepository;
+import model.PayPeriod;
+import utils.PayrollPeriodRunner;
+import utils.PayrollPeriodRunner.PeriodRunResult;
+import utils.PayrollRunEngine;
+
+import javax.swing.SwingWorker;
+
+/**
+ * Runs and saves the payroll for one pay period in the background through
+ * PayrollPeriodRunner, so a rerun replaces the period's records instead of
+ * adding to them. Progress (0-100) is reported through the "progress" bound
+ * property.
+ *
+ * cancelRun() asks the run to stop at its next check; the chunks committed
+ * by then are kept and the next run of the period carries on after them. A
+ * run that finishes before it sees the request completes normally, so get()
+ * reports what actually happened: a result, or a CancellationException cause.
+ */
+public class PayrollRunWorker extends SwingWorker<PeriodRunResult, Void> {
+    private final PayrollRepository dataManager;
+    private final PayrollPeriodRunner runner;
+    private final PayPeriod period;
+    private volatile boolean cancelRequested;
+
+    public PayrollRunWorker(PayrollRepository dataManager, PayrollRunEngine engine, PayPeriod period) {
+        this.dataManager = dataManager;
+        this.runner = new PayrollPeriodRunner(engine);
+        this.period = period;
+    }
+
+    public PayPeriod getPeriod() {
+        return period;
+    }
+
+    // Asks the run to stop; returns false if it has already finished
+    public boolean cancelRun() {
+        cancelRequested = true;
+        return !isDone();
+    }
+
+    @Override
+    protected PeriodRunResult doInBackground() {
+        PeriodRunResult result = runner.run(dataManager, period,
+            (completed, total) -> setProgress((int) (completed * 100L / total)),
+            () -> cancelRequested);
+        setProgress(100);
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package gui;
+
+import model.PayrollRecord;
+import data.PayrollHistoryView;
+import data.PayrollRecordSource;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDate;
+
+/**
+ * Table model that reads payroll records straight from a PayrollRecordSource.
+ * Nothing is copied or formatted up front: getValueAt() fetches the record for
+ * a visible row only, and money columns are formatted by CurrencyRenderer.
+ */
+public class PayrollTableModel extends AbstractTableModel {
+    private static final String[] COLUMN_NAMES = {
+        "Employee ID", "Name", "Hours", "Overtime", "Gross Pay", "Tax", "Net Pay", "Date"
+    };
+    private static final Class<?>[] COLUMN_CLASSES = {
+        Integer.class, String.class, Double.class, Double.class,
+        Double.class, Double.class, Double.class, LocalDate.class
+    };
+
+    private PayrollRecordSource source;
+
+    public PayrollTableModel(PayrollRecordSource source) {
+        this.source = source;
+    }
+
+    public void setSource(PayrollRecordSource newSource) {
+        PayrollRecordSource old = source;
+        source = newSource;
+        if (old instanceof PayrollHistoryView && newSource instanceof PayrollHistoryView) {
+            int[] inserted = ((PayrollHistoryView) newSource).rowsInsertedSince((PayrollHistoryView) old);
+            if (inserted != null) {
+                fireTableRowsInserted(inserted[0], inserted[1]);
+                return;
+            }
+        }
+        fireTableDataChanged();
+    }
+
+    public PayrollRecord getRecordAt(int row) {
+        return source.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return source.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        PayrollRecord record = source.get(row);
+        switch (column) {
+            case 0: return record.getEmployeeId();
+            case 1: return record.getEmployeeName();
+            case 2: return record.getHoursWorked();
+            case 3: return record.getOvertimeHours();
+            case 4: return record.getGrossPay();
+            case 5: return record.getTax();
+            case 6: return record.getNetPay();
+            case 7: return record.getPayDate();
+            default: throw new IllegalArgumentException("Unknown column: " + column);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package metrics;
+
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide registry of named counters and latency histograms.
+ *
+ * Metrics are off unless the JVM is started with -Dpayroll.metrics=true.
+ * ENABLED is a static final, so once the JIT has compiled a call site the
+ * disabled checks in Counter and LatencyHistogram fold away, and
+ * startTime() does not read the clock. Instrumented code keeps its metrics
+ * in static final fields:
+ *
+ *   private static final LatencyHistogram RUN_LATENCY = Metrics.histogram("run.latency");
+ *   long start = Metrics.startTime();
+ *   ...
+ *   RUN_LATENCY.record(start);
+ *
+ * When enabled, everything is published over JMX as payroll:type=Metrics,
+ * and -Dpayroll.metrics.dumpInterval=SECONDS also prints a text dump to
+ * standard error at that interval.
+ */
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("payroll.metrics");
+    public static final String OBJECT_NAME = "payroll:type=Metrics";
+
+    // Sorted so dumps and JMX list related metrics together
+    private static final ConcurrentMap<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final ConcurrentMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+    private static final DateTimeFormatter DUMP_TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), new ObjectName(OBJECT_NAME));
+            } catch (Exception e) {
+                System.err.println("Error registering metrics with JMX: " + e.getMessage());
+            }
+            long interval = Long.getLong("payroll.metrics.dumpInterval", 0);
+            if (interval > 0) {
+                startDump(interval, System.err);
+            }
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    // Start of a timed section for LatencyHistogram.record(); 0 without reading the clock when disabled
+    public static long startTime() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    static Map<String, Counter> getCounters() {
+        return COUNTERS;
+    }
+
+    static Map<String, LatencyHistogram> getHistograms() {
+        return HISTOGRAMS;
+    }
+
+    // Every counter and every histogram with at least one value, one per line
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        for (Counter counter : COUNTERS.values()) {
+            out.append(counter.getName()).append(": ").append(counter.getCount()).append('\n');
+        }
+        for (LatencyHistogram histogram : HISTOGRAMS.values()) {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            if (snapshot.getCount() > 0) {
+                out.append(snapshot).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    // Prints a dump every intervalSeconds from a daemon thread, with each counter's rate since the last one
+    public static void startDump(long intervalSeconds, PrintStream out) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "payroll-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(new Runnable() {
+            private final Map<String, Long> lastCounts = new HashMap<>();
+            private long lastNanos = System.nanoTime();
+
+            @Override
+            public void run() {
+                long now = System.nanoTime();
+                double seconds = (now - lastNanos) / 1e9;
+                lastNanos = now;
+                StringBuilder text = new StringBuilder();
+                text.append("Metrics at ").append(DUMP_TIME.format(LocalTime.now())).append('\n');
+                for (Counter counter : COUNTERS.values()) {
+                    long count = counter.getCount();
+                    Long last = lastCounts.put(counter.getName(), count);
+                    double rate = (count - (last == null ? 0 : last)) / seconds;
+                    text.append("  ").append(counter.getName()).append(": ").append(count)
+                        .append(String.format(" (%.0f/s)", rate)).append('\n');
+                }
+                for (LatencyHistogram histogram : HISTOGRAMS.values()) {
+                    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+                    if (snapshot.getCount() > 0) {
+                        text.append("  ").append(snapshot).append('\n');
+                    }
+                }
+                out.print(text);
+                out.flush();
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+}
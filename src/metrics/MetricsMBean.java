@@ -0,0 +1,100 @@
+package metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JMX view of the registry. Metrics are created as code first uses them, so
+ * the attribute list is rebuilt on every getMBeanInfo(): one Long attribute
+ * per counter, and count, mean, p50, p90, p99 and max attributes (the times
+ * in milliseconds) per histogram, e.g. "run.latency.p99Millis".
+ */
+class MetricsMBean implements DynamicMBean {
+    private static final String[] HISTOGRAM_FIELDS = {
+        "count", "meanMillis", "p50Millis", "p90Millis", "p99Millis", "maxMillis"
+    };
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Counter counter = Metrics.getCounters().get(attribute);
+        if (counter != null) {
+            return counter.getCount();
+        }
+        int dot = attribute.lastIndexOf('.');
+        LatencyHistogram histogram = dot < 0 ? null : Metrics.getHistograms().get(attribute.substring(0, dot));
+        if (histogram != null) {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            switch (attribute.substring(dot + 1)) {
+                case "count": return snapshot.getCount();
+                case "meanMillis": return snapshot.getMeanNanos() / 1e6;
+                case "p50Millis": return snapshot.getPercentileNanos(50) / 1e6;
+                case "p90Millis": return snapshot.getPercentileNanos(90) / 1e6;
+                case "p99Millis": return snapshot.getPercentileNanos(99) / 1e6;
+                case "maxMillis": return snapshot.getMaxNanos() / 1e6;
+                default: break;
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // Left out, as the DynamicMBean contract allows
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if ("dump".equals(actionName)) {
+            return Metrics.dump();
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String name : Metrics.getCounters().keySet()) {
+            attributes.add(new MBeanAttributeInfo(name, "java.lang.Long", "Counter", true, false, false));
+        }
+        for (String name : Metrics.getHistograms().keySet()) {
+            for (String field : HISTOGRAM_FIELDS) {
+                String type = field.equals("count") ? "java.lang.Long" : "java.lang.Double";
+                attributes.add(new MBeanAttributeInfo(name + "." + field, type,
+                                                      "Latency histogram", true, false, false));
+            }
+        }
+        MBeanOperationInfo dump = new MBeanOperationInfo("dump", "All metrics as text",
+                                                         new MBeanParameterInfo[0], "java.lang.String",
+                                                         MBeanOperationInfo.INFO);
+        return new MBeanInfo(MetricsMBean.class.getName(), "Payroll metrics",
+                             attributes.toArray(new MBeanAttributeInfo[0]), null,
+                             new MBeanOperationInfo[] { dump }, null);
+    }
+}
@@ -4,9 +4,12 @@ public class Employee {
     private int employeeId;
     private String name;
     private String position;
-    private double baseSalary;
-    private double hoursWorked;
-    private double overtimeHours;
+    // Volatile so values set by one thread (e.g. a timesheet import) are seen by payroll threads
+    private volatile double baseSalary;
+    private volatile double hoursWorked;
+    private volatile double overtimeHours;
+    // Told about every pay-affecting change; set by the store that owns the employee
+    private volatile ChangeListener changeListener;
     
     public Employee(int employeeId, String name, String position, double baseSalary) {
         this.employeeId = employeeId;
@@ -25,9 +28,44 @@ public class Employee {
     public double getHoursWorked() { return hoursWorked; }
     public double getOvertimeHours() { return overtimeHours; }
     
-    public void setHoursWorked(double hoursWorked) { this.hoursWorked = hoursWorked; }
-    public void setOvertimeHours(double overtimeHours) { this.overtimeHours = overtimeHours; }
-    public void setBaseSalary(double baseSalary) { this.baseSalary = baseSalary; }
+    public void setHoursWorked(double hoursWorked) {
+        this.hoursWorked = hoursWorked;
+        changed();
+    }
+    
+    public void setOvertimeHours(double overtimeHours) {
+        this.overtimeHours = overtimeHours;
+        changed();
+    }
+    
+    public void setBaseSalary(double baseSalary) {
+        this.baseSalary = baseSalary;
+        ChangeListener listener = changeListener;
+        if (listener != null) {
+            listener.baseSalaryChanged(this);
+        }
+    }
+    
+    public void setChangeListener(ChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+    
+    private void changed() {
+        ChangeListener listener = changeListener;
+        if (listener != null) {
+            listener.employeeChanged(this);
+        }
+    }
+    
+    // Called after the new value is visible, on the thread that changed it
+    public interface ChangeListener {
+        void employeeChanged(Employee employee);
+        
+        // Salary is only ever set here, so a store that persists it needs to know which field changed
+        default void baseSalaryChanged(Employee employee) {
+            employeeChanged(employee);
+        }
+    }
     
     @Override
     public String toString() {
@@ -38,4 +76,4 @@ public class Employee {
         return String.format("Employee[ID=%d, Name=%s, Position=%s, Base Salary=%.2f]", 
                            employeeId, name, position, baseSalary);
     }
-}
\ No newline at end of file
+}
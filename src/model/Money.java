@@ -0,0 +1,96 @@
+package model;
+
+/**
+ * Exact money amount in cents.
+ *
+ * Pay math works on long cents so sums over any number of records are exact.
+ * The static methods are the hot path: they work on raw long cents and never
+ * allocate. A Money instance is only a convenience wrapper for code that wants
+ * a value type.
+ *
+ * Rounding: amounts calculated in floating point (gross pay from hours and
+ * rates, tax from a rate) are rounded to the nearest cent, halves rounding up,
+ * once per step. Sums and differences of cents are exact.
+ */
+public final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    public static Money of(double amount) {
+        return ofCents(toCents(amount));
+    }
+
+    // Rounds a dollar amount to cents, halves up
+    public static long toCents(double amount) {
+        // Snap to a millionth first so values like 890.625 that are stored as
+        // 890.62499999... still round the way they read
+        return Math.round(Math.rint(amount * 1_000_000.0) / 10_000.0);
+    }
+
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    // cents * rate rounded to cents, e.g. tax on a gross amount
+    public static long times(long cents, double rate) {
+        return toCents(cents * rate / 100.0);
+    }
+
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(16), cents).toString();
+    }
+
+    // Appends "$1234.56" (or "-$1234.56") without going through String.format
+    public static StringBuilder appendTo(StringBuilder out, long cents) {
+        if (cents < 0) {
+            out.append('-');
+            if (cents == Long.MIN_VALUE) {
+                return out.append("$92233720368547758.08");
+            }
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        out.append('$').append(cents / 100).append('.');
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
+    }
+
+    public long getCents() { return cents; }
+    public double toDouble() { return toDouble(cents); }
+
+    public Money plus(Money other) { return ofCents(Math.addExact(cents, other.cents)); }
+    public Money minus(Money other) { return ofCents(Math.subtractExact(cents, other.cents)); }
+    public Money times(double rate) { return ofCents(times(cents, rate)); }
+    public boolean isNegative() { return cents < 0; }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money && ((Money) other).cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return format(cents);
+    }
+}
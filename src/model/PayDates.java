@@ -0,0 +1,73 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Shared LocalDate and YearMonth instances for pay dates. A payroll history
+ * has millions of records but only a few distinct pay dates, so records point
+ * at one LocalDate per day instead of holding their own. Lookups index a
+ * table by day and never allocate once a date has been seen.
+ *
+ * Dates from 1970 through 2099 are shared; others are returned as they are.
+ * Thread-safe; racing threads agree on one instance per day.
+ */
+public final class PayDates {
+    private static final int FIRST_YEAR = 1970;
+    private static final int LAST_YEAR = 2099;
+    private static final long FIRST_DAY = LocalDate.of(FIRST_YEAR, 1, 1).toEpochDay();
+    private static final long LAST_DAY = LocalDate.of(LAST_YEAR, 12, 31).toEpochDay();
+
+    private static final AtomicReferenceArray<LocalDate> DATES =
+        new AtomicReferenceArray<>((int) (LAST_DAY - FIRST_DAY + 1));
+    private static final AtomicReferenceArray<YearMonth> PERIODS =
+        new AtomicReferenceArray<>((LAST_YEAR - FIRST_YEAR + 1) * 12);
+
+    private PayDates() {
+    }
+
+    // The shared instance equal to date; null stays null
+    public static LocalDate of(LocalDate date) {
+        if (date == null) {
+            return null;
+        }
+        long day = date.toEpochDay();
+        if (day < FIRST_DAY || day > LAST_DAY) {
+            return date;
+        }
+        return share((int) (day - FIRST_DAY), date);
+    }
+
+    public static LocalDate ofEpochDay(long day) {
+        if (day < FIRST_DAY || day > LAST_DAY) {
+            return LocalDate.ofEpochDay(day);
+        }
+        int slot = (int) (day - FIRST_DAY);
+        LocalDate shared = DATES.get(slot);
+        return shared != null ? shared : share(slot, LocalDate.ofEpochDay(day));
+    }
+
+    // The shared month containing date
+    public static YearMonth periodOf(LocalDate date) {
+        int year = date.getYear();
+        if (year < FIRST_YEAR || year > LAST_YEAR) {
+            return YearMonth.from(date);
+        }
+        int slot = (year - FIRST_YEAR) * 12 + date.getMonthValue() - 1;
+        YearMonth shared = PERIODS.get(slot);
+        if (shared != null) {
+            return shared;
+        }
+        YearMonth period = YearMonth.of(year, date.getMonthValue());
+        return PERIODS.compareAndSet(slot, null, period) ? period : PERIODS.get(slot);
+    }
+
+    private static LocalDate share(int slot, LocalDate date) {
+        LocalDate shared = DATES.get(slot);
+        if (shared != null) {
+            return shared;
+        }
+        return DATES.compareAndSet(slot, null, date) ? date : DATES.get(slot);
+    }
+}
@@ -0,0 +1,52 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * A monthly pay period and the day it is paid. Payroll runs, and the records
+ * they replace when a period is run again, are keyed by the month, so the pay
+ * date has to fall inside it. Immutable.
+ */
+public final class PayPeriod {
+    private final YearMonth month;
+    private final LocalDate payDate;
+
+    public PayPeriod(YearMonth month, LocalDate payDate) {
+        if (!YearMonth.from(payDate).equals(month)) {
+            throw new IllegalArgumentException("Pay date " + payDate + " is not in " + month);
+        }
+        this.month = PayDates.periodOf(payDate);
+        this.payDate = PayDates.of(payDate);
+    }
+
+    // Paid on the last day of the month
+    public static PayPeriod of(YearMonth month) {
+        return new PayPeriod(month, month.atEndOfMonth());
+    }
+
+    public YearMonth getMonth() { return month; }
+    public LocalDate getPayDate() { return payDate; }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PayPeriod)) {
+            return false;
+        }
+        PayPeriod period = (PayPeriod) other;
+        return month.equals(period.month) && payDate.equals(period.payDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * month.hashCode() + payDate.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "PayPeriod[Month: " + month + ", Pay date: " + payDate + "]";
+    }
+}
@@ -1,27 +1,47 @@
 package model;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 
-public class PayrollRecord {
-    private int employeeId;
-    private String employeeName;
-    private double hoursWorked;
-    private double overtimeHours;
-    private double grossPay;
-    private double tax;
-    private double netPay;
-    private LocalDate payDate;
+/**
+ * One payment to one employee: an immutable value, equal to any record with
+ * the same fields. Money is held as exact cents.
+ *
+ * Histories hold millions of these, so a record shares what it can instead
+ * of carrying copies: the pay date is the instance PayDates keeps for that
+ * day, and the employee name is whatever String it was given, which for
+ * records calculated from an Employee is the employee's own. Stores that read
+ * records back (journal replay, JDBC queries) pass equal names through a
+ * dictionary so they share one String. What is left is one 64-byte object
+ * per record.
+ *
+ * The components are ordered so the canonical (cents) constructor cannot be
+ * confused with the double constructors by overload resolution.
+ */
+public record PayrollRecord(int employeeId, String employeeName, LocalDate payDate, double hoursWorked,
+                            double overtimeHours, long grossPayCents, long taxCents, long netPayCents) {
+    
+    public PayrollRecord {
+        payDate = PayDates.of(payDate);
+    }
     
     public PayrollRecord(int employeeId, String employeeName, double hoursWorked, 
                         double overtimeHours, double grossPay, double tax, double netPay) {
-        this.employeeId = employeeId;
-        this.employeeName = employeeName;
-        this.hoursWorked = hoursWorked;
-        this.overtimeHours = overtimeHours;
-        this.grossPay = grossPay;
-        this.tax = tax;
-        this.netPay = netPay;
-        this.payDate = LocalDate.now();
+        this(employeeId, employeeName, hoursWorked, overtimeHours, grossPay, tax, netPay, LocalDate.now());
+    }
+    
+    public PayrollRecord(int employeeId, String employeeName, double hoursWorked, 
+                        double overtimeHours, double grossPay, double tax, double netPay,
+                        LocalDate payDate) {
+        this(employeeId, employeeName, payDate, hoursWorked, overtimeHours, Money.toCents(grossPay),
+             Money.toCents(tax), Money.toCents(netPay));
+    }
+    
+    public static PayrollRecord fromCents(int employeeId, String employeeName, double hoursWorked,
+                                          double overtimeHours, long grossPayCents, long taxCents,
+                                          long netPayCents, LocalDate payDate) {
+        return new PayrollRecord(employeeId, employeeName, payDate, hoursWorked, overtimeHours,
+                                 grossPayCents, taxCents, netPayCents);
     }
     
     // Getters
@@ -29,18 +49,24 @@ public class PayrollRecord {
     public String getEmployeeName() { return employeeName; }
     public double getHoursWorked() { return hoursWorked; }
     public double getOvertimeHours() { return overtimeHours; }
-    public double getGrossPay() { return grossPay; }
-    public double getTax() { return tax; }
-    public double getNetPay() { return netPay; }
+    public double getGrossPay() { return Money.toDouble(grossPayCents); }
+    public double getTax() { return Money.toDouble(taxCents); }
+    public double getNetPay() { return Money.toDouble(netPayCents); }
+    public long getGrossPayCents() { return grossPayCents; }
+    public long getTaxCents() { return taxCents; }
+    public long getNetPayCents() { return netPayCents; }
     public LocalDate getPayDate() { return payDate; }
     
+    // The shared YearMonth of the pay date
+    public YearMonth getPayPeriod() { return PayDates.periodOf(payDate); }
+    
     @Override
     public String toString() {
         return String.format(
             "PayrollRecord[Employee: %s (ID: %d), Hours: %.1f, Overtime: %.1f, " +
-            "Gross: $%.2f, Tax: $%.2f, Net: $%.2f, Date: %s]",
+            "Gross: %s, Tax: %s, Net: %s, Date: %s]",
             employeeName, employeeId, hoursWorked, overtimeHours, 
-            grossPay, tax, netPay, payDate
+            Money.format(grossPayCents), Money.format(taxCents), Money.format(netPayCents), payDate
         );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package model;
+
+/**
+ * Progress of the payroll run for one pay period, stored alongside each chunk
+ * of records the run commits.
+ *
+ * A run pays employees in ID order, so its checkpoint is a single number: the
+ * last employee ID whose record has been committed. A run that stopped part
+ * way (a crash, an error, a cancel) resumes with the first employee after it.
+ * Running a completed period again starts a new run whose records replace the
+ * earlier ones. Immutable; each step returns a new state.
+ */
+public final class PayrollRun {
+    public enum Status { IN_PROGRESS, COMPLETED }
+
+    // Checkpoint of a run that has not committed anything yet; employee IDs start at 1
+    public static final int NO_EMPLOYEE = 0;
+
+    private final PayPeriod period;
+    private final Status status;
+    private final int lastEmployeeId;
+    private final int chunkCount;
+    private final int recordCount;
+
+    public PayrollRun(PayPeriod period, Status status, int lastEmployeeId, int chunkCount, int recordCount) {
+        this.period = period;
+        this.status = status;
+        this.lastEmployeeId = lastEmployeeId;
+        this.chunkCount = chunkCount;
+        this.recordCount = recordCount;
+    }
+
+    public static PayrollRun start(PayPeriod period) {
+        return new PayrollRun(period, Status.IN_PROGRESS, NO_EMPLOYEE, 0, 0);
+    }
+
+    // The state after committing records for every employee up to and including lastEmployeeId
+    public PayrollRun checkpoint(int lastEmployeeId, int records) {
+        return new PayrollRun(period, Status.IN_PROGRESS, lastEmployeeId, chunkCount + 1, recordCount + records);
+    }
+
+    public PayrollRun complete() {
+        return new PayrollRun(period, Status.COMPLETED, lastEmployeeId, chunkCount, recordCount);
+    }
+
+    public PayPeriod getPeriod() { return period; }
+    public Status getStatus() { return status; }
+    public boolean isComplete() { return status == Status.COMPLETED; }
+    public int getLastEmployeeId() { return lastEmployeeId; }
+    public int getChunkCount() { return chunkCount; }
+    public int getRecordCount() { return recordCount; }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PayrollRun)) {
+            return false;
+        }
+        PayrollRun run = (PayrollRun) other;
+        return period.equals(run.period) && status == run.status && lastEmployeeId == run.lastEmployeeId
+            && chunkCount == run.chunkCount && recordCount == run.recordCount;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = period.hashCode();
+        hash = 31 * hash + status.hashCode();
+        hash = 31 * hash + lastEmployeeId;
+        hash = 31 * hash + chunkCount;
+        return 31 * hash + recordCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PayrollRun[Month: %s, Pay date: %s, Status: %s, Last employee: %d, Chunks: %d, Records: %d]",
+                             period.getMonth(), period.getPayDate(), status, lastEmployeeId, chunkCount, recordCount);
+    }
+}
@@ -0,0 +1,211 @@
+package utils;
+
+import data.PayrollRepository;
+import model.Employee;
+import model.Money;
+import model.PayPeriod;
+import model.PayrollRecord;
+import model.PayrollRun;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A live, unsaved payroll run for one pay period.
+ *
+ * The draft is calculated once for every employee when it is created and then
+ * kept up to date from the store's change notifications (see
+ * PayrollRepository.addEmployeeListener()): a change only marks the employee
+ * dirty, and the next read recalculates just the dirty employees, taking each
+ * one's old amounts out of the running totals and adding the new ones. Any
+ * number of edits to the same employee between two reads cost one
+ * recalculation, and every read costs time proportional to the employees
+ * changed since the last one, not to the payroll size.
+ *
+ * save() commits the draft as the period's completed run, replacing any
+ * records the period already has for its employees, like a PayrollPeriodRunner
+ * rerun. Reads are thread-safe; close() stops tracking changes.
+ */
+public class DraftPayrollRun implements AutoCloseable {
+    private final PayrollRepository store;
+    private final PayPeriod period;
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private final PayrollRepository.EmployeeListener listener = dirty::add;
+
+    // Guarded by this
+    private final Map<Integer, Line> lines = new HashMap<>();
+    private final Totals totals = new Totals();
+    private final Map<String, Totals> totalsByPosition = new HashMap<>();
+    private long recalculations;
+
+    public DraftPayrollRun(PayrollRepository store, PayPeriod period) {
+        this.store = store;
+        this.period = period;
+        // Listen before the first pass so changes made during it are picked up by the next read
+        store.addEmployeeListener(listener);
+        synchronized (this) {
+            for (Employee employee : store.getAllEmployees()) {
+                calculate(employee);
+            }
+        }
+    }
+
+    public PayPeriod getPeriod() {
+        return period;
+    }
+
+    // Recalculates the employees changed since the last call and returns how many there were
+    public synchronized int refresh() {
+        int count = 0;
+        for (Integer employeeId : dirty) {
+            // Remove first: a change that lands during the recalculation marks it dirty again
+            dirty.remove(employeeId);
+            recalculate(employeeId);
+            count++;
+        }
+        return count;
+    }
+
+    private void recalculate(int employeeId) {
+        Line old = lines.remove(employeeId);
+        if (old != null) {
+            totals.subtract(old.record);
+            Totals positionTotals = totalsByPosition.get(old.position);
+            positionTotals.subtract(old.record);
+            if (positionTotals.count == 0) {
+                totalsByPosition.remove(old.position);
+            }
+        }
+
+        Employee employee = store.getEmployee(employeeId);
+        if (employee != null) {
+            calculate(employee);
+        } else {
+            recalculations++;
+        }
+    }
+
+    // Caller holds the lock and has taken any old line out
+    private void calculate(Employee employee) {
+        PayrollRecord record = PayrollCalculator.generatePayrollRecord(employee, period.getPayDate());
+        lines.put(employee.getEmployeeId(), new Line(record, employee.getPosition()));
+        totals.add(record);
+        totalsByPosition.computeIfAbsent(employee.getPosition(), position -> new Totals()).add(record);
+        recalculations++;
+    }
+
+    public synchronized Totals getTotals() {
+        refresh();
+        return totals.copy();
+    }
+
+    // Totals per position, sorted by position name
+    public synchronized Map<String, Totals> getTotalsByPosition() {
+        refresh();
+        Map<String, Totals> copy = new TreeMap<>();
+        for (Map.Entry<String, Totals> entry : totalsByPosition.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copy;
+    }
+
+    // The draft record for an employee, or null if they are not in the draft
+    public synchronized PayrollRecord getRecord(int employeeId) {
+        refresh();
+        Line line = lines.get(employeeId);
+        return line == null ? null : line.record;
+    }
+
+    // Draft records in employee ID order
+    public synchronized List<PayrollRecord> getRecords() {
+        refresh();
+        List<PayrollRecord> records = new ArrayList<>(lines.size());
+        for (Line line : lines.values()) {
+            records.add(line.record);
+        }
+        records.sort(Comparator.comparingInt(PayrollRecord::getEmployeeId));
+        return records;
+    }
+
+    public int getPendingChangeCount() {
+        return dirty.size();
+    }
+
+    // Employees recalculated since the draft was created, the initial pass included
+    public synchronized long getRecalculationCount() {
+        return recalculations;
+    }
+
+    // Commits the current draft records as the period's completed run and returns how many were saved
+    public int save() {
+        List<PayrollRecord> records = getRecords();
+        int lastEmployeeId = records.isEmpty() ? PayrollRun.NO_EMPLOYEE
+                                               : records.get(records.size() - 1).getEmployeeId();
+        PayrollRun run = PayrollRun.start(period).checkpoint(lastEmployeeId, records.size()).complete();
+        store.commitPayrollRun(run, records);
+        return records.size();
+    }
+
+    @Override
+    public void close() {
+        store.removeEmployeeListener(listener);
+    }
+
+    private static final class Line {
+        final PayrollRecord record;
+        final String position;
+
+        Line(PayrollRecord record, String position) {
+            this.record = record;
+            this.position = position;
+        }
+    }
+
+    // Running sums in cents; instances handed out are copies
+    public static final class Totals {
+        private int count;
+        private long grossPayCents;
+        private long taxCents;
+        private long netPayCents;
+
+        private void add(PayrollRecord record) {
+            count++;
+            grossPayCents += record.getGrossPayCents();
+            taxCents += record.getTaxCents();
+            netPayCents += record.getNetPayCents();
+        }
+
+        private void subtract(PayrollRecord record) {
+            count--;
+            grossPayCents -= record.getGrossPayCents();
+            taxCents -= record.getTaxCents();
+            netPayCents -= record.getNetPayCents();
+        }
+
+        private Totals copy() {
+            Totals copy = new Totals();
+            copy.count = count;
+            copy.grossPayCents = grossPayCents;
+            copy.taxCents = taxCents;
+            copy.netPayCents = netPayCents;
+            return copy;
+        }
+
+        public int getEmployeeCount() { return count; }
+        public long getGrossPayCents() { return grossPayCents; }
+        public long getTaxCents() { return taxCents; }
+        public long getNetPayCents() { return netPayCents; }
+
+        @Override
+        public String toString() {
+            return String.format("Totals[Employees: %d, Gross: %s, Tax: %s, Net: %s]", count,
+                                 Money.format(grossPayCents), Money.format(taxCents), Money.format(netPayCents));
+        }
+    }
+}
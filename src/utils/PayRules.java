@@ -0,0 +1,294 @@
+package utils;
+
+import model.Money;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Compiled pay rules: standard hours, overtime multiplier, bracketed tax and
+ * deductions, with per-position overrides.
+ *
+ * Rules are read from a properties file once and compiled into one immutable
+ * PositionRules per position, holding plain doubles and bracket arrays with
+ * the tax owed at each bracket start precomputed. Calculating pay is then a
+ * short loop over a few array entries; nothing is looked up by name per
+ * employee except the position, which is a scan over a handful of entries.
+ *
+ * The *Cents methods are the ones payroll records are built from: each step
+ * (gross, tax, deductions) is rounded to the cent once, and net pay is the
+ * exact difference of the rounded amounts.
+ *
+ * File format (see config/pay-rules.properties):
+ *
+ *   default.standardHours=40
+ *   default.overtimeMultiplier=1.5
+ *   default.taxBrackets=0:0.10,1000:0.15,4000:0.25   (threshold:rate, ascending)
+ *   default.deductions=flat:25,percent:0.02          (optional)
+ *   position.Manager.taxBrackets=0:0.15,8000:0.30
+ *
+ * A region may be selected when loading; keys prefixed with region.NAME.
+ * then take precedence, so the lookup order for a setting is
+ * region.R.position.P, position.P, region.R.default, default.
+ */
+public final class PayRules {
+    private static final PayRules DEFAULTS = new PayRules(
+        new PositionRules(40.0, 1.5, new double[] {0}, new double[] {0.15}, 0, 0),
+        new String[0], new PositionRules[0]);
+
+    private final PositionRules defaultRules;
+    private final String[] positions;
+    private final PositionRules[] positionRules;
+
+    private PayRules(PositionRules defaultRules, String[] positions, PositionRules[] positionRules) {
+        this.defaultRules = defaultRules;
+        this.positions = positions;
+        this.positionRules = positionRules;
+    }
+
+    // 40 standard hours, 1.5x overtime, flat 15% tax, no deductions
+    public static PayRules defaults() {
+        return DEFAULTS;
+    }
+
+    public static PayRules load(Path file) throws IOException {
+        return load(file, null);
+    }
+
+    public static PayRules load(Path file, String region) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        return compile(properties, region);
+    }
+
+    public static PayRules compile(Properties properties, String region) {
+        PositionRules defaultRules = compilePosition(properties, region, null, DEFAULTS.defaultRules);
+
+        // Collect every position mentioned with or without the region prefix
+        Set<String> names = new LinkedHashSet<>();
+        String regionPrefix = region == null ? null : "region." + region + ".";
+        for (String key : properties.stringPropertyNames()) {
+            String rest = key;
+            if (regionPrefix != null && rest.startsWith(regionPrefix)) {
+                rest = rest.substring(regionPrefix.length());
+            }
+            if (rest.startsWith("position.")) {
+                int end = rest.lastIndexOf('.');
+                if (end > "position.".length()) {
+                    names.add(rest.substring("position.".length(), end));
+                }
+            }
+        }
+
+        String[] positions = names.toArray(new String[0]);
+        PositionRules[] positionRules = new PositionRules[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = positions[i].intern();
+            positionRules[i] = compilePosition(properties, region, positions[i], defaultRules);
+        }
+        return new PayRules(defaultRules, positions, positionRules);
+    }
+
+    private static PositionRules compilePosition(Properties properties, String region,
+                                                 String position, PositionRules fallback) {
+        String standardHours = setting(properties, region, position, "standardHours");
+        String overtime = setting(properties, region, position, "overtimeMultiplier");
+        String brackets = setting(properties, region, position, "taxBrackets");
+        String deductions = setting(properties, region, position, "deductions");
+
+        double[] thresholds = fallback.thresholds;
+        double[] rates = fallback.rates;
+        if (brackets != null) {
+            String[] parts = brackets.split(",");
+            thresholds = new double[parts.length];
+            rates = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                String[] pair = parts[i].trim().split(":");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Invalid tax bracket '" + parts[i] + "', expected threshold:rate");
+                }
+                thresholds[i] = Double.parseDouble(pair[0].trim());
+                rates[i] = Double.parseDouble(pair[1].trim());
+                if (i == 0 ? thresholds[i] != 0 : thresholds[i] <= thresholds[i - 1]) {
+                    throw new IllegalArgumentException("Tax brackets must start at 0 and ascend: " + brackets);
+                }
+            }
+        }
+
+        double flatDeduction = fallback.flatDeduction;
+        double percentDeduction = fallback.percentDeduction;
+        if (deductions != null) {
+            flatDeduction = 0;
+            percentDeduction = 0;
+            for (String part : deductions.split(",")) {
+                String[] pair = part.trim().split(":");
+                if (pair.length == 2 && pair[0].trim().equals("flat")) {
+                    flatDeduction = Double.parseDouble(pair[1].trim());
+                } else if (pair.length == 2 && pair[0].trim().equals("percent")) {
+                    percentDeduction = Double.parseDouble(pair[1].trim());
+                } else if (!part.trim().isEmpty() && !part.trim().equals("0")) {
+                    throw new IllegalArgumentException("Invalid deduction '" + part + "', expected flat:amount or percent:rate");
+                }
+            }
+        }
+
+        return new PositionRules(
+            standardHours == null ? fallback.standardHours : Double.parseDouble(standardHours),
+            overtime == null ? fallback.overtimeMultiplier : Double.parseDouble(overtime),
+            thresholds, rates, flatDeduction, percentDeduction);
+    }
+
+    private static String setting(Properties properties, String region, String position, String name) {
+        List<String> keys = new ArrayList<>(4);
+        if (position != null) {
+            if (region != null) {
+                keys.add("region." + region + ".position." + position + "." + name);
+            }
+            keys.add("position." + position + "." + name);
+        } else {
+            if (region != null) {
+                keys.add("region." + region + ".default." + name);
+            }
+            keys.add("default." + name);
+        }
+        for (String key : keys) {
+            String value = properties.getProperty(key);
+            if (value != null) {
+                return value.trim();
+            }
+        }
+        return null;
+    }
+
+    public PositionRules forPosition(String position) {
+        String[] names = positions;
+        // Positions are usually interned literals, so try identity before equals
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == position) {
+                return positionRules[i];
+            }
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(position)) {
+                return positionRules[i];
+            }
+        }
+        return defaultRules;
+    }
+
+    public PositionRules getDefaultRules() {
+        return defaultRules;
+    }
+
+    public static final class PositionRules {
+        private final double standardHours;
+        private final double overtimeMultiplier;
+        private final double[] thresholds;
+        private final double[] rates;
+        // baseTax[i] is the tax owed on income up to thresholds[i]
+        private final double[] baseTax;
+        private final double flatDeduction;
+        private final double percentDeduction;
+
+        PositionRules(double standardHours, double overtimeMultiplier, double[] thresholds, double[] rates,
+                      double flatDeduction, double percentDeduction) {
+            if (standardHours <= 0) {
+                throw new IllegalArgumentException("Standard hours must be positive: " + standardHours);
+            }
+            this.standardHours = standardHours;
+            this.overtimeMultiplier = overtimeMultiplier;
+            this.thresholds = thresholds;
+            this.rates = rates;
+            this.flatDeduction = flatDeduction;
+            this.percentDeduction = percentDeduction;
+            baseTax = new double[thresholds.length];
+            for (int i = 1; i < thresholds.length; i++) {
+                baseTax[i] = baseTax[i - 1] + (thresholds[i] - thresholds[i - 1]) * rates[i - 1];
+            }
+        }
+
+        public double grossPay(double baseSalary, double hoursWorked, double overtimeHours) {
+            double hourlyRate = baseSalary / standardHours;
+            return Math.min(hoursWorked, standardHours) * hourlyRate
+                 + overtimeHours * hourlyRate * overtimeMultiplier;
+        }
+
+        public double tax(double grossPay) {
+            int bracket = 0;
+            while (bracket + 1 < thresholds.length && grossPay >= thresholds[bracket + 1]) {
+                bracket++;
+            }
+            return baseTax[bracket] + (grossPay - thresholds[bracket]) * rates[bracket];
+        }
+
+        public double deductions(double grossPay) {
+            return flatDeduction + grossPay * percentDeduction;
+        }
+
+        public long grossPayCents(double baseSalary, double hoursWorked, double overtimeHours) {
+            return Money.toCents(grossPay(baseSalary, hoursWorked, overtimeHours));
+        }
+
+        // Tax and deductions are taken on the already rounded gross pay
+        public long taxCents(long grossPayCents) {
+            return Money.toCents(tax(Money.toDouble(grossPayCents)));
+        }
+
+        public long deductionsCents(long grossPayCents) {
+            return Money.toCents(deductions(Money.toDouble(grossPayCents)));
+        }
+
+        /**
+         * Bulk form of grossPayCents/taxCents/deductionsCents over rows
+         * [from, to) of parallel arrays. Writes into the caller's output arrays
+         * and allocates nothing. Each step is a separate straight-line loop over
+         * primitive arrays, a shape the JIT can unroll (single-bracket tax included).
+         */
+        public void calculate(double[] baseSalary, double[] hoursWorked, double[] overtimeHours,
+                              long[] grossPayCents, long[] taxCents, long[] netPayCents, int from, int to) {
+            // Same operation order as the scalar methods, so results match them exactly
+            double standard = standardHours;
+            double multiplier = overtimeMultiplier;
+            for (int i = from; i < to; i++) {
+                double hourlyRate = baseSalary[i] / standard;
+                grossPayCents[i] = Money.toCents(Math.min(hoursWorked[i], standard) * hourlyRate
+                                                 + overtimeHours[i] * hourlyRate * multiplier);
+            }
+
+            if (thresholds.length == 1) {
+                double rate = rates[0];
+                for (int i = from; i < to; i++) {
+                    taxCents[i] = Money.toCents(Money.toDouble(grossPayCents[i]) * rate);
+                }
+            } else {
+                for (int i = from; i < to; i++) {
+                    taxCents[i] = taxCents(grossPayCents[i]);
+                }
+            }
+
+            double flat = flatDeduction;
+            double percent = percentDeduction;
+            for (int i = from; i < to; i++) {
+                long deductions = Money.toCents(flat + Money.toDouble(grossPayCents[i]) * percent);
+                netPayCents[i] = grossPayCents[i] - taxCents[i] - deductions;
+            }
+        }
+
+        public double getStandardHours() { return standardHours; }
+        public double getOvertimeMultiplier() { return overtimeMultiplier; }
+        public int getBracketCount() { return thresholds.length; }
+        public double getBracketThreshold(int bracket) { return thresholds[bracket]; }
+        public double getBracketRate(int bracket) { return rates[bracket]; }
+        public double getFlatDeduction() { return flatDeduction; }
+        public double getPercentDeduction() { return percentDeduction; }
+    }
+}
@@ -1,40 +1,106 @@
 package utils;
 
+import metrics.Counter;
+import metrics.Metrics;
 import model.Employee;
+import model.Money;
 import model.PayrollRecord;
+import utils.PayRules.PositionRules;
+
+import java.time.LocalDate;
 
 public class PayrollCalculator {
-    private static final double OVERTIME_RATE = 1.5;
-    private static final double STANDARD_HOURS = 40.0;
-    private static final double TAX_RATE = 0.15; // 15% tax rate
-    
+    // Defaults: 40 standard hours, 1.5x overtime, 15% tax (see PayRules.defaults())
+    private static volatile PayRules rules = PayRules.defaults();
+
+    // Per-record timing would cost more than the calculation; runs are timed by PayrollRunEngine
+    private static final Counter RECORDS_CALCULATED = Metrics.counter("calculator.records");
+    private static final Counter BATCH_ROWS_CALCULATED = Metrics.counter("calculator.batchRows");
+
+    public static PayRules getRules() {
+        return rules;
+    }
+
+    public static void setRules(PayRules newRules) {
+        rules = newRules;
+    }
+
+    // The double methods return amounts already rounded to the cent, the same
+    // values generatePayrollRecord stores
     public static double calculateGrossPay(Employee employee) {
-        double regularPay = Math.min(employee.getHoursWorked(), STANDARD_HOURS) * 
-                           (employee.getBaseSalary() / STANDARD_HOURS);
-        
-        double overtimePay = employee.getOvertimeHours() * 
-                            (employee.getBaseSalary() / STANDARD_HOURS) * OVERTIME_RATE;
-        
-        return regularPay + overtimePay;
+        return Money.toDouble(grossPayCents(rules.forPosition(employee.getPosition()), employee));
     }
-    
+
+    // Tax under the default rules; use calculateTax(Employee, double) for position-specific brackets
     public static double calculateTax(double grossPay) {
-        return grossPay * TAX_RATE;
+        return Money.toDouble(rules.getDefaultRules().taxCents(Money.toCents(grossPay)));
     }
-    
+
+    public static double calculateTax(Employee employee, double grossPay) {
+        return Money.toDouble(rules.forPosition(employee.getPosition()).taxCents(Money.toCents(grossPay)));
+    }
+
     public static double calculateNetPay(Employee employee) {
-        double grossPay = calculateGrossPay(employee);
-        double tax = calculateTax(grossPay);
-        return grossPay - tax;
+        return Money.toDouble(calculateNetPayCents(employee));
+    }
+
+    public static long calculateNetPayCents(Employee employee) {
+        PositionRules positionRules = rules.forPosition(employee.getPosition());
+        long grossPay = grossPayCents(positionRules, employee);
+        return grossPay - positionRules.taxCents(grossPay) - positionRules.deductionsCents(grossPay);
+    }
+
+    // Stores set hours and overtime together under the employee's monitor, so read them under it too
+    private static long grossPayCents(PositionRules positionRules, Employee employee) {
+        synchronized (employee) {
+            return positionRules.grossPayCents(employee.getBaseSalary(), employee.getHoursWorked(),
+                                               employee.getOvertimeHours());
+        }
+    }
+
+    /**
+     * Calculates gross pay, tax and net pay in cents for a whole batch held in
+     * parallel arrays, without creating any objects. All employees in the batch are paid
+     * under the same rules; group employees by position and call once per group
+     * with rules.forPosition(position) when positions have their own rules.
+     */
+    public static void calculateBatch(double[] baseSalary, double[] hoursWorked, double[] overtimeHours,
+                                      long[] grossPay, long[] tax, long[] netPay) {
+        calculateBatch(rules.getDefaultRules(), baseSalary, hoursWorked, overtimeHours,
+                       grossPay, tax, netPay, 0, baseSalary.length);
+    }
+
+    public static void calculateBatch(PositionRules positionRules, double[] baseSalary, double[] hoursWorked,
+                                      double[] overtimeHours, long[] grossPay, long[] tax, long[] netPay,
+                                      int from, int to) {
+        if (from < 0 || to < from || to > baseSalary.length || to > hoursWorked.length
+                || to > overtimeHours.length || to > grossPay.length || to > tax.length || to > netPay.length) {
+            throw new IndexOutOfBoundsException("Batch range [" + from + ", " + to + ") exceeds an array");
+        }
+        positionRules.calculate(baseSalary, hoursWorked, overtimeHours, grossPay, tax, netPay, from, to);
+        BATCH_ROWS_CALCULATED.add(to - from);
     }
     
     public static PayrollRecord generatePayrollRecord(Employee employee) {
-        double grossPay = calculateGrossPay(employee);
-        double tax = calculateTax(grossPay);
-        double netPay = grossPay - tax;
-        
-        return new PayrollRecord(employee.getEmployeeId(), employee.getName(), 
-                               employee.getHoursWorked(), employee.getOvertimeHours(),
-                               grossPay, tax, netPay);
+        return generatePayrollRecord(employee, LocalDate.now());
+    }
+
+    public static PayrollRecord generatePayrollRecord(Employee employee, LocalDate payDate) {
+        PositionRules positionRules = rules.forPosition(employee.getPosition());
+        // Read the hours once, under the monitor stores update them with, so the
+        // record and the pay agree and never mix an old and a new value
+        double hoursWorked;
+        double overtimeHours;
+        synchronized (employee) {
+            hoursWorked = employee.getHoursWorked();
+            overtimeHours = employee.getOvertimeHours();
+        }
+        long grossPay = positionRules.grossPayCents(employee.getBaseSalary(), hoursWorked, overtimeHours);
+        long tax = positionRules.taxCents(grossPay);
+        long netPay = grossPay - tax - positionRules.deductionsCents(grossPay);
+        RECORDS_CALCULATED.increment();
+
+        return PayrollRecord.fromCents(employee.getEmployeeId(), employee.getName(),
+                                       hoursWorked, overtimeHours, grossPay, tax, netPay, payDate);
     }
 }
\ No newline at end of file
@@ -0,0 +1,171 @@
+package utils;
+
+import data.PayrollRepository;
+import model.Employee;
+import model.PayPeriod;
+import model.PayrollRecord;
+import model.PayrollRun;
+import utils.PayrollRunEngine.ProgressListener;
+import utils.PayrollRunEngine.RunResult;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs and saves the payroll for one pay period in chunks, each committed to
+ * the store together with the run's checkpoint (see
+ * PayrollRepository.commitPayrollRun()).
+ *
+ * Employees are paid in ID order, chunkSize at a time: a chunk is calculated
+ * on the engine's threads and committed before the next one starts. If a run
+ * stops part way (the process dies, the store fails, or it is cancelled), the
+ * next run() of the same period carries on after the last employee committed
+ * instead of starting over. Running a period that has completed recalculates
+ * every employee and replaces the period's records, so a rerun leaves one
+ * record per employee, never two.
+ *
+ * The store's checkpoint is the only state kept between runs; one runner may
+ * serve several periods, but run one period from one place at a time.
+ */
+public class PayrollPeriodRunner {
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+    private static final ProgressListener NO_PROGRESS = (completed, total) -> { };
+    private static final BooleanSupplier NEVER_CANCELLED = () -> false;
+
+    private final PayrollRunEngine engine;
+    private final int chunkSize;
+
+    public PayrollPeriodRunner(PayrollRunEngine engine) {
+        this(engine, DEFAULT_CHUNK_SIZE);
+    }
+
+    public PayrollPeriodRunner(PayrollRunEngine engine, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.engine = engine;
+        this.chunkSize = chunkSize;
+    }
+
+    public PeriodRunResult run(PayrollRepository store, PayPeriod period) {
+        return run(store, period, NO_PROGRESS, NEVER_CANCELLED);
+    }
+
+    /**
+     * Resumes the period's unfinished run, or starts a new one, and runs it to
+     * completion. Progress counts the employees of this call only. Throws
+     * CancellationException once cancelled returns true; chunks committed
+     * before that are kept and the next call resumes after them.
+     */
+    public PeriodRunResult run(PayrollRepository store, PayPeriod period,
+                               ProgressListener listener, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        PayrollRun run = store.getPayrollRun(period.getMonth());
+        // A run for another pay date would mix dates in the period, so it starts over
+        boolean resumed = run != null && !run.isComplete() && run.getPeriod().equals(period);
+        if (!resumed) {
+            run = PayrollRun.start(period);
+        }
+        int resumedAfter = run.getLastEmployeeId();
+
+        Employee[] employees = store.getAllEmployees().toArray(new Employee[0]);
+        Arrays.sort(employees, Comparator.comparingInt(Employee::getEmployeeId));
+        int first = 0;
+        while (first < employees.length && employees[first].getEmployeeId() <= resumedAfter) {
+            first++;
+        }
+        List<Employee> remaining = Arrays.asList(employees).subList(first, employees.length);
+
+        int calculated = 0;
+        int replaced = 0;
+        for (int from = 0; from < remaining.size(); from += chunkSize) {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Payroll run cancelled");
+            }
+            int to = Math.min(from + chunkSize, remaining.size());
+            int done = from;
+            RunResult chunk = engine.run(remaining.subList(from, to), period.getPayDate(),
+                                         (completed, total) -> listener.progress(done + completed, remaining.size()),
+                                         cancelled);
+            run = run.checkpoint(remaining.get(to - 1).getEmployeeId(), chunk.getRecordCount());
+            // The last chunk completes the run in the same commit
+            if (to == remaining.size()) {
+                run = run.complete();
+            }
+            replaced += store.commitPayrollRun(run, chunk.getRecords()).size();
+            calculated += chunk.getRecordCount();
+        }
+        if (!run.isComplete()) {
+            run = run.complete();
+            store.commitPayrollRun(run, Collections.emptyList());
+        }
+        return new PeriodRunResult(run, resumed, resumedAfter, calculated, replaced, System.nanoTime() - start);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Calculates and commits one employee's record for the month, replacing
+     * any record they already have in it. The month's run state is committed
+     * unchanged, or started if the month has never been run so that a later
+     * run() still pays everyone; the record is dated on the run's pay date.
+     */
+    public static PayrollRecord runEmployee(PayrollRepository store, YearMonth month, Employee employee) {
+        PayrollRun run = store.getPayrollRun(month);
+        if (run == null) {
+            run = PayrollRun.start(PayPeriod.of(month));
+        }
+        PayrollRecord record = PayrollCalculator.generatePayrollRecord(employee, run.getPeriod().getPayDate());
+        store.commitPayrollRun(run, Collections.singletonList(record));
+        return record;
+    }
+
+    public static class PeriodRunResult {
+        private final PayrollRun run;
+        private final boolean resumed;
+        private final int resumedAfter;
+        private final int recordsCalculated;
+        private final int recordsReplaced;
+        private final long elapsedNanos;
+
+        PeriodRunResult(PayrollRun run, boolean resumed, int resumedAfter, int recordsCalculated,
+                        int recordsReplaced, long elapsedNanos) {
+            this.run = run;
+            this.resumed = resumed;
+            this.resumedAfter = resumedAfter;
+            this.recordsCalculated = recordsCalculated;
+            this.recordsReplaced = recordsReplaced;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        // The run's final state; its record count includes chunks committed before a resume
+        public PayrollRun getRun() { return run; }
+        public boolean isResumed() { return resumed; }
+        // The checkpoint this call started from; PayrollRun.NO_EMPLOYEE unless resumed
+        public int getResumedAfterEmployeeId() { return resumedAfter; }
+        public int getRecordsCalculated() { return recordsCalculated; }
+        // Records from an earlier run of the period that this call replaced
+        public int getRecordsReplaced() { return recordsReplaced; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        public double getElapsedMillis() { return elapsedNanos / 1_000_000.0; }
+
+        public double getRecordsPerSecond() {
+            return elapsedNanos == 0 ? 0 : recordsCalculated * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PeriodRunResult[Month: %s, Records: %d, Replaced: %d, Resumed: %s, Time: %.1f ms]",
+                                 run.getPeriod().getMonth(), recordsCalculated, recordsReplaced, resumed,
+                                 getElapsedMillis());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package utils;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.Employee;
+import model.Money;
+import model.PayrollRecord;
+import data.PayrollRepository;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+public class PayrollRunEngine implements AutoCloseable {
+    public interface ProgressListener {
+        // Called from worker threads as batches of employees complete
+        void progress(int completed, int total);
+    }
+
+    private static final ProgressListener NO_PROGRESS = (completed, total) -> { };
+    private static final BooleanSupplier NEVER_CANCELLED = () -> false;
+
+    // Below this many employees a task computes directly instead of splitting
+    private static final int DEFAULT_SPLIT_THRESHOLD = 2048;
+
+    private static final LatencyHistogram RUN_LATENCY = Metrics.histogram("run.latency");
+    private static final Counter RUN_RECORDS = Metrics.counter("run.records");
+
+    private final ForkJoinPool pool;
+    private final int splitThreshold;
+    // Only a pool the engine created is shut down by close()
+    private final boolean ownsPool;
+
+    public PayrollRunEngine() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SPLIT_THRESHOLD, false);
+    }
+
+    // Runs on a pool of its own with the given number of threads; close the engine to stop them
+    public PayrollRunEngine(int parallelism) {
+        this(new ForkJoinPool(parallelism), DEFAULT_SPLIT_THRESHOLD, true);
+    }
+
+    // Runs on a pool the caller owns and shuts down
+    public PayrollRunEngine(ForkJoinPool pool, int splitThreshold) {
+        this(pool, splitThreshold, false);
+    }
+
+    private PayrollRunEngine(ForkJoinPool pool, int splitThreshold, boolean ownsPool) {
+        if (splitThreshold < 1) {
+            throw new IllegalArgumentException("Split threshold must be positive");
+        }
+        this.pool = pool;
+        this.splitThreshold = splitThreshold;
+        this.ownsPool = ownsPool;
+    }
+
+    public RunResult run(PayrollRepository dataManager) {
+        return run(dataManager.getAllEmployees());
+    }
+
+    public RunResult run(List<Employee> employees) {
+        return run(employees, NO_PROGRESS, NEVER_CANCELLED);
+    }
+
+    public RunResult run(List<Employee> employees, LocalDate payDate) {
+        return run(employees, payDate, NO_PROGRESS, NEVER_CANCELLED);
+    }
+
+    public RunResult run(List<Employee> employees, ProgressListener listener, BooleanSupplier cancelled) {
+        return run(employees, LocalDate.now(), listener, cancelled);
+    }
+
+    // Throws CancellationException once cancelled returns true; work already in flight finishes its batch
+    public RunResult run(List<Employee> employees, LocalDate payDate,
+                         ProgressListener listener, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+
+        // Order by ID so the result is stable regardless of map iteration order
+        Employee[] sorted = employees.toArray(new Employee[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(Employee::getEmployeeId));
+
+        PayrollRecord[] records = new PayrollRecord[sorted.length];
+        if (sorted.length > 0) {
+            RunState state = new RunState(sorted, records, payDate, listener, cancelled);
+            pool.invoke(new CalculateTask(state, 0, sorted.length));
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Payroll run cancelled");
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        RUN_LATENCY.recordNanos(elapsed);
+        RUN_RECORDS.add(records.length);
+        return new RunResult(Arrays.asList(records), elapsed, pool.getParallelism());
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    // Shuts down the pool if the engine created it; runs already started finish first
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    private static class RunState {
+        final Employee[] employees;
+        final PayrollRecord[] records;
+        final LocalDate payDate;
+        final ProgressListener listener;
+        final BooleanSupplier cancelled;
+        final AtomicInteger completed = new AtomicInteger();
+
+        RunState(Employee[] employees, PayrollRecord[] records, LocalDate payDate,
+                 ProgressListener listener, BooleanSupplier cancelled) {
+            this.employees = employees;
+            this.records = records;
+            this.payDate = payDate;
+            this.listener = listener;
+            this.cancelled = cancelled;
+        }
+    }
+
+    private class CalculateTask extends RecursiveAction {
+        private final RunState state;
+        private final int from;
+        private final int to;
+
+        CalculateTask(RunState state, int from, int to) {
+            this.state = state;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (state.cancelled.getAsBoolean()) {
+                return;
+            }
+            if (to - from <= splitThreshold) {
+                Employee[] employees = state.employees;
+                PayrollRecord[] records = state.records;
+                LocalDate payDate = state.payDate;
+                for (int i = from; i < to; i++) {
+                    records[i] = PayrollCalculator.generatePayrollRecord(employees[i], payDate);
+                }
+                state.listener.progress(state.completed.addAndGet(to - from), employees.length);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new CalculateTask(state, from, mid),
+                      new CalculateTask(state, mid, to));
+        }
+    }
+
+    public static class RunResult {
+        private final List<PayrollRecord> records;
+        private final long elapsedNanos;
+        private final int parallelism;
+
+        RunResult(List<PayrollRecord> records, long elapsedNanos, int parallelism) {
+            this.records = Collections.unmodifiableList(records);
+            this.elapsedNanos = elapsedNanos;
+            this.parallelism = parallelism;
+        }
+
+        public List<PayrollRecord> getRecords() { return records; }
+        public int getRecordCount() { return records.size(); }
+        public long getElapsedNanos() { return elapsedNanos; }
+        public double getElapsedMillis() { return elapsedNanos / 1_000_000.0; }
+        public int getParallelism() { return parallelism; }
+
+        public double getRecordsPerSecond() {
+            return elapsedNanos == 0 ? 0 : records.size() * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        // Totals are summed in cents, so they are exact for any number of records
+        public long getTotalGrossPayCents() {
+            long total = 0;
+            for (PayrollRecord record : records) {
+                total += record.getGrossPayCents();
+            }
+            return total;
+        }
+
+        public long getTotalTaxCents() {
+            long total = 0;
+            for (PayrollRecord record : records) {
+                total += record.getTaxCents();
+            }
+            return total;
+        }
+
+        public long getTotalNetPayCents() {
+            long total = 0;
+            for (PayrollRecord record : records) {
+                total += record.getNetPayCents();
+            }
+            return total;
+        }
+
+        public double getTotalGrossPay() { return Money.toDouble(getTotalGrossPayCents()); }
+        public double getTotalNetPay() { return Money.toDouble(getTotalNetPayCents()); }
+
+        @Override
+        public String toString() {
+            return String.format("RunResult[Records: %d, Time: %.1f ms, Rate: %.0f records/s, Threads: %d]",
+                               records.size(), getElapsedMillis(), getRecordsPerSecond(), parallelism);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package data;
+
+import model.PayPeriod;
+import model.PayrollRecord;
+import model.PayrollRun;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcDataManagerTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final LocalDate SEPTEMBER = LocalDate.of(2026, 9, 30);
+    private static final LocalDate OCTOBER = LocalDate.of(2026, 10, 31);
+
+    private String url;
+    private JdbcDataManager store;
+
+    @BeforeEach
+    void open() throws SQLException {
+        // A fresh in-memory database per test; it lives as long as the pool's connections
+        url = "jdbc:h2:mem:payroll" + DATABASES.incrementAndGet();
+        store = new JdbcDataManager(url);
+    }
+
+    @AfterEach
+    void close() {
+        store.close();
+    }
+
+    private static PayrollRecord record(int employeeId, long netPayCents, LocalDate payDate) {
+        return PayrollRecord.fromCents(employeeId, "Employee " + employeeId, 160, 0,
+                                       netPayCents + 100, 100, netPayCents, payDate);
+    }
+
+    @Test
+    void pagesThroughRecordsSharingAPayDate() {
+        List<PayrollRecord> saved = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            saved.add(record(i, i * 1000L, OCTOBER));
+        }
+        saved.add(record(8, 8000, SEPTEMBER));
+        saved.add(record(9, 9000, SEPTEMBER));
+        store.savePayrollRecords(saved);
+
+        // Page boundaries fall inside the run of equal dates and on the change of date
+        List<PayrollRecord> paged = new ArrayList<>();
+        JdbcDataManager.Page page = null;
+        int pages = 0;
+        do {
+            page = store.getPayrollRecordsPage(page, 3);
+            paged.addAll(page.getRecords());
+            pages++;
+        } while (page.hasNextPage());
+
+        assertEquals(3, pages);
+        assertEquals(store.getAllPayrollRecords(), paged);
+        assertEquals(saved, paged);
+        assertTrue(store.getPayrollRecordsPage(page, 3).getRecords().isEmpty());
+    }
+
+    @Test
+    void latestRecordsOfNoneIsEmpty() {
+        store.savePayrollRecord(record(1, 1000, OCTOBER));
+
+        // Matches the other stores instead of failing like a page size below one
+        assertTrue(store.getLatestPayrollRecords(0).isEmpty());
+        assertTrue(store.getLatestPayrollRecords(-1).isEmpty());
+        assertEquals(1, store.getLatestPayrollRecords(1).size());
+    }
+
+    @Test
+    void failedBatchSaveRollsBackEveryRecord() throws SQLException {
+        // Take an ID the store will hand out in its second JDBC batch, so the first batch has executed
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO payroll_records (id, employee_id, employee_name, pay_date) "
+                                    + "VALUES (1500, 99, 'Existing', '2026-09-30')");
+        }
+        List<PayrollRecord> records = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            records.add(record(i, i, OCTOBER));
+        }
+
+        assertThrows(DataAccessException.class, () -> store.savePayrollRecords(records));
+        assertEquals(1, store.getPayrollRecordCount());
+        assertTrue(store.getPayrollRecordsForDate(OCTOBER).isEmpty());
+    }
+
+    @Test
+    void commitPayrollRunReplacesTheMonthsRecords() {
+        PayrollRecord september = record(1, 500, SEPTEMBER);
+        store.savePayrollRecord(september);
+        PayPeriod october = PayPeriod.of(YearMonth.from(OCTOBER));
+        PayrollRun first = PayrollRun.start(october).checkpoint(2, 2).complete();
+        store.commitPayrollRun(first, Arrays.asList(record(1, 1000, OCTOBER), record(2, 2000, OCTOBER)));
+
+        PayrollRun rerun = PayrollRun.start(october).checkpoint(1, 1);
+        List<PayrollRecord> replaced = store.commitPayrollRun(rerun, Arrays.asList(record(1, 1500, OCTOBER)));
+
+        assertEquals(Arrays.asList(record(1, 1000, OCTOBER)), replaced);
+        List<PayrollRecord> month = store.getPayrollRecordsForPeriod(october.getMonth());
+        assertEquals(2, month.size());
+        assertTrue(month.contains(record(1, 1500, OCTOBER)));
+        assertTrue(month.contains(record(2, 2000, OCTOBER)));
+        // Other months are left alone
+        assertEquals(Arrays.asList(september), store.getPayrollRecordsForPeriod(YearMonth.from(SEPTEMBER)));
+        assertEquals(3, store.getPayrollRecordCount());
+
+        PayrollRun stored = store.getPayrollRun(october.getMonth());
+        assertEquals(rerun, stored);
+        assertFalse(stored.isComplete());
+    }
+}
@@ -0,0 +1,38 @@
+package data;
+
+import model.PayrollRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PayStubWriterTest {
+    private static final LocalDate OCTOBER = LocalDate.of(2026, 10, 31);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesTheWholeStubForANameWithALoneSurrogate() throws IOException {
+        PayrollRecord record = PayrollRecord.fromCents(1, "Ann \uD800 Lee", 160, 0, 410000, 60000, 350000, OCTOBER);
+        PayStubWriter writer = new PayStubWriter(PayStubTemplate.defaultTemplate(PayStubTemplate.Format.TEXT),
+                                                 new PayrollRollups());
+        List<PayrollRecord> records = Arrays.asList(record);
+
+        assertEquals(1, writer.writeDirectory(records, directory));
+
+        // The surrogate is written as '?' and the rest of the stub follows it
+        String expected = writer.render(record).replace('\uD800', '?');
+        String written = new String(Files.readAllBytes(directory.resolve("1-" + OCTOBER + ".txt")),
+                                    StandardCharsets.UTF_8);
+        assertEquals(expected, written);
+    }
+}